@@ -15,26 +15,47 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
-import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.execution.MavenSession;
-import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Parent;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -47,6 +68,7 @@ import org.apache.maven.shared.release.policy.version.VersionPolicy;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.cli.CommandLineCallable;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
@@ -64,6 +86,13 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     private static final String VERSIONS_MAVEN_PLUGIN_SET_GOAL = "set";
     /** The versions-maven-plugin set-property goal. */
     private static final String VERSIONS_MAVEN_PLUGIN_SET_PROPERTY_GOAL = "set-property";
+    /**
+     * Arguments of the versions-maven-plugin set goal which aren't supported by
+     * the in-process versions update.
+     */
+    private static final Pattern VERSIONS_SET_ARG_PATTERN = Pattern.compile(
+            "-D(groupId|artifactId|oldVersion|processParent|processProject|processDependencies|processPlugins"
+                    + "|updateMatchingVersions|processFromLocalAggregationRoot|removeSnapshot|nextSnapshot)(=.*)?");
 
     /** Group and artifact id of the tycho-versions-plugin. */
     private static final String TYCHO_VERSIONS_PLUGIN = "org.eclipse.tycho:tycho-versions-plugin";
@@ -79,6 +108,22 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     /** Success exit code. */
     private static final int SUCCESS_EXIT_CODE = 0;
 
+    /** Git notes reference of the successfully tested trees. */
+    private static final String VERIFIED_NOTES_REF = "refs/notes/gitflow-verified";
+
+    /** Maximum number of threads running pre-flight checks. */
+    private static final int MAX_PREFLIGHT_THREADS = 4;
+
+    /** Path of the SNAPSHOT check cache in the Git directory. */
+    private static final String SNAPSHOT_CHECK_CACHE_PATH = "gitflow/snapshot-check";
+
+    /**
+     * Maximum total length of the paths passed to git commit, longer lists are
+     * committed with <code>-a</code> to stay below the Windows command line
+     * limit.
+     */
+    private static final int MAX_COMMIT_PATHS_LENGTH = 4096;
+
     /** Pattern of disallowed characters in Maven commands. */
     private static final Pattern MAVEN_DISALLOWED_PATTERN = Pattern.compile("[&|;]");
 
@@ -90,6 +135,69 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     /** Whether .gitmodules file exists in project. */
     private final boolean gitModulesExists;
 
+    /** Git reference database, <code>null</code> if refs cannot be read from files. */
+    private GitRefDatabase gitRefDatabase;
+    /** Whether the Git reference database was initialized. */
+    private boolean gitRefDatabaseInitialized;
+
+    /**
+     * Result of the remote fetch, <code>null</code> if remote wasn't fetched
+     * yet during this execution.
+     */
+    private Boolean remoteFetchResult;
+
+    /** Branch names already fetched from remote in the required branches mode. */
+    private final Set<String> fetchedBranchNames = new HashSet<>();
+
+    /** Branch prefixes already fetched from remote in the required branches mode. */
+    private final Set<String> fetchedBranchPrefixes = new HashSet<>();
+
+    /** Branch names to fetch together with the next fetch in the required branches mode. */
+    private final Set<String> requiredBranchNames = new LinkedHashSet<>();
+
+    /** Branch prefixes to fetch together with the next fetch in the required branches mode. */
+    private final Set<String> requiredBranchPrefixes = new LinkedHashSet<>();
+
+    /** Profiler of the executed commands, <code>null</code> if disabled. */
+    private CommandProfiler commandProfiler;
+
+    /** Temporary file with the full Maven commands output. */
+    private File mavenOutputSpoolFile;
+
+    /** Execution root project loaded without modules, <code>null</code> until loaded. */
+    private MavenProject rootProject;
+    /** Hash of the pom.xml from which {@link #rootProject} was loaded. */
+    private String rootProjectPomHash;
+
+    /** Canonical path of the top-level directory of the repository, <code>null</code> until loaded. */
+    private String gitTopLevel;
+
+    /**
+     * Paths (relative to the top-level directory of the repository) of the
+     * files modified by the plugin since the last commit, <code>null</code> if
+     * files were modified by an external process and all changes must be
+     * committed.
+     */
+    private Set<String> modifiedFiles = new LinkedHashSet<>();
+
+    /** Hash of the .gitmodules file and gitlinks at the last submodule update. */
+    private String gitSubmoduleState;
+    /** Hash of the .gitmodules file from which {@link #gitSubmodulePaths} were read. */
+    private String gitModulesHash;
+    /** Paths of the submodules. */
+    private List<String> gitSubmodulePaths;
+
+    /** Whether the project was installed during this execution. */
+    private boolean projectInstalled;
+
+    /** Snapshot of Git references, <code>null</code> until loaded. */
+    private volatile RefSnapshot refSnapshot;
+
+    /** Long-lived git cat-file process, started on demand. */
+    private GitCatFileProcess gitCatFileProcess;
+    /** Whether starting of the git cat-file process failed. */
+    private boolean gitCatFileProcessFailed;
+
     /** Git flow configuration. */
     @Parameter(defaultValue = "${gitFlowConfig}")
     protected GitFlowConfig gitFlowConfig;
@@ -118,6 +226,48 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     @Parameter(property = "installProject", defaultValue = "false")
     protected boolean installProject = false;
 
+    /**
+     * Whether to call Maven install goal instead of test goal when the project
+     * is tested, if {@link #installProject} is enabled. The project isn't
+     * installed again later in the same mojo execution, so one build is used
+     * for both testing and installation.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "installOnTest", defaultValue = "false")
+    private boolean installOnTest = false;
+
+    /**
+     * Whether to call Maven clean goal before testing or installing the
+     * project.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "cleanProject", defaultValue = "true")
+    private boolean cleanProject = true;
+
+    /**
+     * Number of threads (Maven <code>-T</code> option, e.g. <code>4</code> or
+     * <code>1C</code>) to use when testing or installing the project.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "mvnThreads")
+    private String mvnThreads;
+
+    /**
+     * Whether to test only the modules changed relative to the target branch
+     * and modules depending on them (Maven <code>-pl</code>, <code>-am</code>
+     * and <code>-amd</code> options) in the <code>feature-finish</code> and
+     * <code>hotfix-finish</code> goals. The modules the changed ones depend on
+     * are built too, so they aren't resolved from the local repository. The
+     * whole project is tested if the root module is changed.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "testAffectedModulesOnly", defaultValue = "false")
+    private boolean testAffectedModulesOnly = false;
+
     /**
      * Whether to fetch remote branch and compare it with the local one.
      * 
@@ -126,6 +276,36 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     @Parameter(property = "fetchRemote", defaultValue = "true")
     protected boolean fetchRemote;
 
+    /**
+     * Whether to fetch only the branches needed by the goal instead of the whole
+     * remote. Requires Git 2.6.0 or newer.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "fetchRequiredBranchesOnly", defaultValue = "false")
+    private boolean fetchRequiredBranchesOnly = false;
+
+    /**
+     * Whether to pass <code>--no-tags</code> argument to the git
+     * <code>fetch</code> command.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "fetchNoTags", defaultValue = "false")
+    private boolean fetchNoTags = false;
+
+    /**
+     * Commits or references to pass to the git <code>fetch</code> command using
+     * <code>--negotiation-tip</code>. Multiple values can be added separated
+     * with a space e.g.
+     * <code>-DfetchNegotiationTips="develop master"</code>. Requires Git 2.19.0
+     * or newer.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "fetchNegotiationTips")
+    private String fetchNegotiationTips;
+
     /**
      * Whether to print commands output into the console.
      * 
@@ -134,6 +314,105 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     @Parameter(property = "verbose", defaultValue = "false")
     private boolean verbose = false;
 
+    /**
+     * Maximum number of the last lines of the Maven commands output kept in
+     * memory and shown in the failure message. Applies to the output and the
+     * error streams separately. Zero or negative value means no limit.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "mavenOutputTailLines", defaultValue = "1000")
+    private int mavenOutputTailLines = 1000;
+
+    /**
+     * Maximum size in characters of the last lines of the Maven commands output
+     * kept in memory and shown in the failure message. Applies to the output
+     * and the error streams separately. Zero or negative value means no limit.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "mavenOutputTailSize", defaultValue = "1048576")
+    private long mavenOutputTailSize = 1048576;
+
+    /**
+     * Whether to write the full output of the Maven commands into the
+     * <code>gitflow-maven-output.log</code> file in the build directory. The
+     * output is written into a temporary file and moved into the build
+     * directory at the end of the execution, so <code>clean</code> goal
+     * doesn't remove it.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "spoolMavenOutput", defaultValue = "false")
+    private boolean spoolMavenOutput = false;
+
+    /**
+     * Whether to measure every executed Git and Maven command. At the end of
+     * the execution the summary grouped by command (e.g. <code>git fetch</code>,
+     * <code>mvn clean install</code>) is printed and the profile is written
+     * into the <code>gitflow-profile.json</code> file in the build directory.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "profileCommands", defaultValue = "false")
+    private boolean profileCommands = false;
+
+    /**
+     * Whether to trace the workflow phases (e.g. checking for uncommitted
+     * changes, fetching and comparing branches, merging, tagging, pushing)
+     * together with the Git and Maven commands executed in them. The trace is
+     * written in Chrome trace event format into the
+     * <code>gitflow-trace.json</code> file in the build directory and can be
+     * opened in <code>chrome://tracing</code> or Perfetto UI.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "traceWorkflow", defaultValue = "false")
+    private boolean traceWorkflow = false;
+
+    /**
+     * Whether to run independent pre-flight checks of the finish goals (e.g.
+     * check for uncommitted changes, check for SNAPSHOT dependencies, fetch and
+     * comparison of the branches with the remote) concurrently. All failed
+     * checks are reported together.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "concurrentPreflight", defaultValue = "false")
+    protected boolean concurrentPreflight = false;
+
+    /**
+     * Whether to skip testing of the project if the same tree was already
+     * tested with the same goals. Successfully tested trees are recorded in
+     * the <code>refs/notes/gitflow-verified</code> Git notes, which can be
+     * shared (e.g. pushed by CI and fetched locally).
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "verificationCache", defaultValue = "false")
+    private boolean verificationCache = false;
+
+    /**
+     * Whether to cache results of the check for SNAPSHOT dependencies per
+     * module. The cache is stored in the Git directory and later checks reload
+     * only the modules whose pom.xml files were changed. Any change of the
+     * parent or aggregator pom.xml files invalidates the whole cache.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "snapshotCheckCache", defaultValue = "false")
+    private boolean snapshotCheckCache = false;
+
+    /**
+     * Whether the check for SNAPSHOT dependencies also checks build plugins
+     * and their dependencies, build extensions, dependency management and
+     * imported BOMs. By default only dependencies and parent are checked.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "completeSnapshotCheck", defaultValue = "false")
+    private boolean completeSnapshotCheck = false;
+
     /**
      * Command line arguments to pass to the underlying Maven commands.
      * 
@@ -232,6 +511,17 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     @Parameter(property = "gitPushOptions")
     private String gitPushOptions;
 
+    /**
+     * Whether to push all branches, tags and remote branch deletions of the
+     * <code>-finish</code> goals with one <code>git push --atomic</code>
+     * command. Either all references are updated on the remote or none of them.
+     * Remote must support atomic push.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "atomicPush", defaultValue = "false")
+    private boolean atomicPush = false;
+
     /**
      * Explicitly enable or disable executing Git submodule update before commit. By
      * default plugin tries to automatically determine if update of the Git
@@ -242,6 +532,90 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     @Parameter(property = "updateGitSubmodules")
     private Boolean updateGitSubmodules;
 
+    /**
+     * Whether to update Git submodules before commit only if their recorded
+     * commits (gitlinks) or the <code>.gitmodules</code> file were changed
+     * since the last update, e.g. by checkout or merge.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "updateChangedGitSubmodulesOnly", defaultValue = "false")
+    private boolean updateChangedGitSubmodulesOnly = false;
+
+    /**
+     * Number of Git submodules fetched in parallel during update (Git
+     * <code>--jobs</code> option). By default Git configuration
+     * (<code>submodule.fetchJobs</code>) is used.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "gitSubmoduleJobs")
+    private Integer gitSubmoduleJobs;
+
+    /**
+     * Whether to read Git references (branches, tags and <code>HEAD</code>)
+     * directly from the repository files instead of executing Git commands.
+     * Git commands are still used if references are stored in the format which
+     * cannot be read, e.g. reftable.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "readGitRefs", defaultValue = "true")
+    private boolean readGitRefs = true;
+
+    /**
+     * Whether to keep one <code>git cat-file --batch-check</code> process
+     * running during the mojo execution and use it for read-only queries
+     * (reference lookups, object types and commits) instead of starting a new
+     * Git process for each of them. The <code>pom.xml</code> blobs of other
+     * branches are read with a second <code>git cat-file --batch</code>
+     * process. Disabled by default.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "persistentGitProcess", defaultValue = "false")
+    private boolean persistentGitProcess = false;
+
+    /**
+     * Whether to load local branches, remote branches of the
+     * {@link GitFlowConfig#getOrigin()} and tags once and answer branch and tag
+     * lookups from memory. The snapshot is updated by the plugin's own Git
+     * commands which create or delete references.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "cacheGitRefs", defaultValue = "true")
+    private boolean cacheGitRefs = true;
+
+    /**
+     * Whether to merge into the branches which are not checked out (e.g.
+     * production branch in <code>release-finish</code> and
+     * <code>hotfix-finish</code> goals) without checking them out, using
+     * <code>git merge-tree --write-tree</code>, <code>git commit-tree</code>
+     * and <code>git update-ref</code>. Falls back to the checkout and
+     * <code>git merge</code> on conflicts, on rebase, when merging an annotated
+     * tag and if Git is older than 2.38.0. Git hooks aren't run for the merges
+     * created this way.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "inMemoryMerge", defaultValue = "false")
+    private boolean inMemoryMerge = false;
+
+    /**
+     * Whether to update versions by rewriting pom.xml files of the reactor
+     * modules directly instead of executing versions-maven-plugin. Updates
+     * <code>project/version</code>, <code>parent/version</code>, versions of
+     * the reactor dependencies and plugins, {@link #versionProperty} and
+     * <code>project.build.outputTimestamp</code> property keeping the
+     * formatting. Not used for Tycho builds and falls back to the
+     * versions-maven-plugin if project version is defined with an expression.
+     * 
+     * @since 1.22.0
+     */
+    @Parameter(property = "updateVersionsInProcess", defaultValue = "false")
+    private boolean updateVersionsInProcess = false;
+
     /**
      * The path to the Maven executable. Defaults to "mvn".
      */
@@ -278,7 +652,7 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      * Initializes command line executables.
      * 
      */
-    private void initExecutables() {
+    private synchronized void initExecutables() {
         if (StringUtils.isBlank(cmdMvn.getExecutable())) {
             if (StringUtils.isBlank(mvnExecutable)) {
                 final String javaCommand = mavenSession.getSystemProperties().getProperty("sun.java.command", "");
@@ -338,6 +712,143 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         return reloadedProject.getVersion();
     }
 
+    /**
+     * Gets project version on the given branch. The version is read from the
+     * Git object database without checking out the branch. If it cannot be read
+     * this way, e.g. it is defined by the property of the parent which isn't in
+     * the repository, the branch is checked out and the version is read from
+     * the working tree.
+     * 
+     * @param branchName
+     *            Name of the branch.
+     * @return Project version on the branch.
+     * @throws MojoFailureException
+     *             If project version cannot be obtained.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected String getProjectVersion(final String branchName) throws MojoFailureException, CommandLineException {
+        final String version = gitReadProjectVersion("refs/heads/" + branchName);
+        if (version != null) {
+            return version;
+        }
+        getLog().debug("Cannot read project version of '" + branchName + "' without checkout.");
+        gitCheckout(branchName);
+        return getCurrentProjectVersion();
+    }
+
+    /**
+     * Reads project version from the pom.xml file in the Git object database.
+     * Properties used in the version are resolved from the user properties and
+     * from the pom.xml files of the parents in the same revision.
+     * 
+     * @param revision
+     *            Revision to read pom.xml from.
+     * @return Project version or <code>null</code> if it cannot be read.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitReadProjectVersion(final String revision) throws MojoFailureException, CommandLineException {
+        final String projectPath = gitRelativePath(mavenSession.getCurrentProject().getFile());
+        if (projectPath == null) {
+            return null;
+        }
+        final ProjectVersionResolver resolver = new ProjectVersionResolver(projectPath);
+        // project and its parents
+        for (String path = resolver.getNextPath(); path != null; path = resolver.getNextPath()) {
+            final String blob = gitReadBlob(revision + ":" + path);
+            if (blob == null) {
+                break;
+            }
+            try {
+                resolver.addPom(new PomVersionRewriter(blob));
+            } catch (IOException e) {
+                getLog().debug(e);
+                break;
+            }
+        }
+        return resolver.resolve(mavenSession.getUserProperties());
+    }
+
+    /**
+     * Gets path of the file relative to the top-level directory of the
+     * repository.
+     * 
+     * @param file
+     *            File.
+     * @return Slash separated path or <code>null</code> if the file is outside
+     *         of the working tree.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitRelativePath(final File file) throws MojoFailureException, CommandLineException {
+        try {
+            if (gitTopLevel == null) {
+                final CommandResult toplevel = executeGitCommandExitCode("rev-parse", "--show-toplevel");
+                if (toplevel.getExitCode() != SUCCESS_EXIT_CODE) {
+                    return null;
+                }
+                gitTopLevel = new File(StringUtils.strip(toplevel.getOut())).getCanonicalPath();
+            }
+            final String path = file.getCanonicalPath();
+            if (!path.startsWith(gitTopLevel + File.separator)) {
+                return null;
+            }
+            return path.substring(gitTopLevel.length() + 1).replace(File.separatorChar, '/');
+        } catch (IOException e) {
+            getLog().debug(e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets Git blob names of the tracked files which aren't modified in the
+     * working tree.
+     * 
+     * @param paths
+     *            Paths relative to the top-level directory of the repository.
+     * @return Blob names keyed by path, modified and untracked files are
+     *         missing.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private Map<String, String> gitCleanBlobs(final Collection<String> paths)
+            throws MojoFailureException, CommandLineException {
+        final Map<String, String> blobs = new HashMap<>();
+        if (paths.isEmpty()) {
+            return blobs;
+        }
+        final List<String> pathspecs = new ArrayList<>();
+        for (String path : paths) {
+            pathspecs.add(":(top,literal)" + path);
+        }
+
+        final List<String> args = new ArrayList<>(Arrays.asList("ls-files", "--stage", "--full-name", "-z", "--"));
+        args.addAll(pathspecs);
+        // <mode> SP <object> SP <stage> TAB <file>
+        for (String entry : executeGitCommandReturn(args.toArray(new String[0])).split("\0")) {
+            final int tab = entry.indexOf('\t');
+            final String[] info = tab > 0 ? entry.substring(0, tab).trim().split(" ") : new String[0];
+            if (info.length == 3 && "0".equals(info[2])) {
+                blobs.put(StringUtils.strip(entry.substring(tab + 1)), info[1]);
+            }
+        }
+
+        args.clear();
+        args.addAll(Arrays.asList("diff-files", "--name-only", "-z", "--"));
+        args.addAll(pathspecs);
+        for (String path : executeGitCommandReturn(args.toArray(new String[0])).split("\0")) {
+            blobs.remove(StringUtils.strip(path));
+        }
+        return blobs;
+    }
+
     /**
      * Gets current project {@link #REPRODUCIBLE_BUILDS_PROPERTY} property value
      * from pom.xml file.
@@ -377,7 +888,9 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     }
 
     /**
-     * Reloads project info from file.
+     * Reloads project info from file without modules. The loaded project is
+     * reused until its pom.xml is changed, another branch is checked out or
+     * versions are updated.
      * 
      * @param project
      * @return Maven project which is the execution root.
@@ -385,14 +898,76 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If project loading fails.
      */
     private MavenProject reloadProject(final MavenProject project) throws MojoFailureException {
-        List<MavenProject> projects = reloadProjects(project);
-        for (MavenProject resultProject : projects) {
-            if (resultProject.isExecutionRoot()) {
-                return resultProject;
+        final File pomFile = project.getFile();
+        final String pomHash = hashFile(pomFile);
+        if (rootProject != null && pomHash != null && pomHash.equals(rootProjectPomHash)) {
+            return rootProject;
+        }
+        MavenProject loadedProject = null;
+        try {
+            loadedProject = projectBuilder.build(pomFile, mavenSession.getProjectBuildingRequest()).getProject();
+        } catch (Exception e) {
+            // e.g. BOM of the reactor module is imported
+            getLog().debug("Cannot load project without modules, loading all modules.", e);
+        }
+        if (loadedProject == null) {
+            for (MavenProject resultProject : reloadProjects(project)) {
+                if (resultProject.isExecutionRoot()) {
+                    loadedProject = resultProject;
+                }
+            }
+            if (loadedProject == null) {
+                throw new NoSuchElementException("No reloaded project appears to be the execution root ("
+                        + project.getGroupId() + ":" + project.getArtifactId() + ")");
+            }
+        }
+        rootProject = loadedProject;
+        rootProjectPomHash = pomHash;
+        return rootProject;
+    }
+
+    /**
+     * Forgets the loaded execution root project, e.g. after files in the
+     * working tree were changed.
+     */
+    private void invalidateRootProject() {
+        rootProject = null;
+        rootProjectPomHash = null;
+    }
+
+    /**
+     * Calculates SHA-256 hash of the file content.
+     * 
+     * @param file
+     *            File.
+     * @return Hex encoded hash or <code>null</code> if file cannot be read.
+     */
+    private static String hashFile(final File file) {
+        try {
+            return hash(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calculates SHA-256 hash.
+     * 
+     * @param bytes
+     *            Data to hash.
+     * @return Hex encoded hash or <code>null</code> if SHA-256 isn't available.
+     */
+    private static String hash(final byte[] bytes) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format(Locale.ROOT, "%02x", b));
             }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
         }
-        throw new NoSuchElementException(
-                "No reloaded project appears to be the execution root (" + project.getGroupId() + ":" + project.getArtifactId() + ")");
     }
 
     /**
@@ -415,63 +990,285 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      */
     protected void checkUncommittedChanges() throws MojoFailureException, CommandLineException {
         getLog().info("Checking for uncommitted changes.");
-        if (executeGitHasUncommitted()) {
-            throw new MojoFailureException("You have some uncommitted files. Commit or discard local changes in order to proceed.");
+        try (CommandProfiler.Span span = traceSpan("uncommitted check", null)) {
+            if (executeGitHasUncommitted()) {
+                throw new MojoFailureException("You have some uncommitted files. Commit or discard local changes in order to proceed.");
+            }
         }
     }
 
     protected void checkSnapshotDependencies() throws MojoFailureException {
         getLog().info("Checking for SNAPSHOT versions in dependencies.");
+        try (CommandProfiler.Span span = traceSpan("snapshot check", null)) {
+            Collection<SnapshotCheckCache.Module> modules = null;
+            if (snapshotCheckCache) {
+                try {
+                    modules = checkSnapshotDependenciesCached();
+                } catch (CommandLineException e) {
+                    getLog().warn("Cannot use SNAPSHOT check cache, checking all modules.", e);
+                }
+            }
+            if (modules == null) {
+                final SnapshotDependencyAnalyzer analyzer = new SnapshotDependencyAnalyzer(completeSnapshotCheck);
+                modules = analyzer.analyzeAll(reloadProjects(mavenSession.getCurrentProject()),
+                        project -> analyzer.analyze(project, null, null));
+            }
+
+            List<String> snapshots = new ArrayList<>();
+            Set<String> builtArtifacts = new HashSet<>();
+            for (SnapshotCheckCache.Module module : modules) {
+                builtArtifacts.add(module.getId());
+            }
 
-        List<String> snapshots = new ArrayList<>();
-        Set<String> builtArtifacts = new HashSet<>();
+            for (SnapshotCheckCache.Module module : modules) {
+                for (String[] snapshot : module.getSnapshots()) {
+                    if (!builtArtifacts.contains(snapshot[0])) {
+                        snapshots.add(snapshot[1]);
+                    }
+                }
+            }
 
-        List<MavenProject> projects = reloadProjects(mavenSession.getCurrentProject());
-        for (MavenProject project : projects) {
-            builtArtifacts.add(project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+            if (!snapshots.isEmpty()) {
+                for (String s : snapshots) {
+                    getLog().warn(s);
+                }
+                throw new MojoFailureException(
+                        "There is some SNAPSHOT dependencies in the project, see warnings above."
+                        + " Change them or ignore with `allowSnapshots` property.");
+            }
         }
+    }
 
-        for (MavenProject project : projects) {
-            List<Dependency> dependencies = project.getDependencies();
-            for (Dependency d : dependencies) {
-                String id = d.getGroupId() + ":" + d.getArtifactId() + ":" + d.getVersion();
-                if (!builtArtifacts.contains(id) && ArtifactUtils.isSnapshot(d.getVersion())) {
-                    snapshots.add(project + " -> " + d);
+    /**
+     * Checks SNAPSHOT dependencies using results of the previous checks. Only
+     * modules whose pom.xml files were changed are reloaded.
+     * 
+     * @return Checked modules or <code>null</code> if cache cannot be used.
+     * @throws MojoFailureException
+     *             If project loading fails.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private Collection<SnapshotCheckCache.Module> checkSnapshotDependenciesCached()
+            throws MojoFailureException, CommandLineException {
+        final CommandResult gitPath = executeGitCommandExitCode("rev-parse", "--git-path", SNAPSHOT_CHECK_CACHE_PATH);
+        if (gitPath.getExitCode() != SUCCESS_EXIT_CODE
+                || gitRelativePath(mavenSession.getCurrentProject().getFile()) == null) {
+            return null;
+        }
+        final File cacheFile = new File(StringUtils.strip(gitPath.getOut())).getAbsoluteFile();
+        final String context = snapshotCheckContext();
+        final SnapshotDependencyAnalyzer analyzer = new SnapshotDependencyAnalyzer(completeSnapshotCheck);
+
+        SnapshotCheckCache cache = null;
+        try {
+            cache = SnapshotCheckCache.read(cacheFile);
+        } catch (IOException e) {
+            getLog().debug(e);
+        }
+
+        // blobs are needed only if the cache is checked with the same context
+        final Map<String, String> cachedBlobs = cache != null && context.equals(cache.getContext())
+                ? gitCleanBlobs(cache.getPaths())
+                : Collections.<String, String> emptyMap();
+        final List<String> changed = cache != null ? cache.findChangedModules(context, cachedBlobs) : null;
+        if (changed != null) {
+            getLog().info("Checking " + changed.size() + " changed module(s), results for "
+                    + (cache.getModules().size() - changed.size()) + " module(s) are cached.");
+
+            boolean valid = true;
+            try {
+                final Map<MavenProject, String> projectPaths = new LinkedHashMap<>();
+                for (String path : changed) {
+                    projectPaths.put(projectBuilder
+                            .build(new File(gitTopLevel, path), mavenSession.getProjectBuildingRequest())
+                            .getProject(), path);
                 }
+                for (SnapshotCheckCache.Module module : analyzer.analyzeAll(
+                        new ArrayList<>(projectPaths.keySet()), project -> {
+                            final String path = projectPaths.get(project);
+                            final String blob = cachedBlobs.get(path);
+                            return analyzer.analyze(project, path,
+                                    blob != null ? blob : SnapshotCheckCache.DIRTY_BLOB);
+                        })) {
+                    cache.addModule(module);
+                }
+            } catch (Exception e) {
+                getLog().debug(e);
+                valid = false;
+            }
+
+            if (valid) {
+                writeSnapshotCheckCache(cache, cacheFile);
+                return cache.getModules().values();
+            }
+        } else if (cache != null) {
+            getLog().debug("SNAPSHOT check cache is invalid, checking all modules.");
+        }
+
+        final List<MavenProject> projects = reloadProjects(mavenSession.getCurrentProject());
+        cache = new SnapshotCheckCache(context);
+        final Map<MavenProject, String> modulePaths = new HashMap<>();
+        final Set<String> inheritedPaths = new HashSet<>();
+        boolean cacheable = true;
+        for (MavenProject project : projects) {
+            final String path = gitRelativePath(project.getFile());
+            if (path == null) {
+                cacheable = false;
+                continue;
             }
-            MavenProject parent = project.getParent();
-            if (parent != null) {
-                String id = parent.getGroupId() + ":" + parent.getArtifactId() + ":" + parent.getVersion();
-                if (!builtArtifacts.contains(id) && ArtifactUtils.isSnapshot(parent.getVersion())) {
-                    snapshots.add(project + " -> " + parent);
+            modulePaths.put(project, path);
+            // parents and aggregators
+            if ("pom".equals(project.getPackaging())) {
+                inheritedPaths.add(path);
+            }
+            for (MavenProject parent = project.getParent(); parent != null; parent = parent.getParent()) {
+                final String parentPath = parent.getFile() != null ? gitRelativePath(parent.getFile()) : null;
+                if (parentPath != null) {
+                    inheritedPaths.add(parentPath);
                 }
             }
         }
 
-        if (!snapshots.isEmpty()) {
-            for (String s : snapshots) {
-                getLog().warn(s);
+        final Set<String> paths = new HashSet<>(inheritedPaths);
+        paths.addAll(modulePaths.values());
+        final Map<String, String> blobs = gitCleanBlobs(paths);
+        for (String path : inheritedPaths) {
+            final String blob = blobs.get(path);
+            cache.getInheritedFiles().put(path, blob != null ? blob : SnapshotCheckCache.DIRTY_BLOB);
+        }
+        final List<SnapshotCheckCache.Module> modules = analyzer.analyzeAll(projects, project -> {
+            final String path = modulePaths.get(project);
+            final String blob = path != null ? blobs.get(path) : null;
+            return analyzer.analyze(project, path, blob != null ? blob : SnapshotCheckCache.DIRTY_BLOB);
+        });
+        for (SnapshotCheckCache.Module module : modules) {
+            if (module.getPath() != null) {
+                cache.addModule(module);
             }
-            throw new MojoFailureException(
-                    "There is some SNAPSHOT dependencies in the project, see warnings above."
-                    + " Change them or ignore with `allowSnapshots` property.");
         }
+        if (cacheable) {
+            writeSnapshotCheckCache(cache, cacheFile);
+        }
+        return modules;
     }
 
     /**
-     * Checks if branch name is acceptable.
+     * Hashes everything besides pom.xml files what affects the project model
+     * and isn't changed with the branch.
      * 
-     * @param branchName
-     *            Branch name to check.
-     * @return <code>true</code> when name is valid, <code>false</code> otherwise.
+     * @return Hash of the user properties and active profiles.
+     */
+    private String snapshotCheckContext() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(gitTopLevel).append('\n');
+        sb.append(new TreeMap<>(mavenSession.getUserProperties())).append('\n');
+        sb.append(mavenSession.getRequest().getActiveProfiles()).append('\n');
+        sb.append(mavenSession.getRequest().getInactiveProfiles()).append('\n');
+        sb.append(settings.getActiveProfiles()).append('\n');
+        sb.append(completeSnapshotCheck).append('\n');
+        return hash(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeSnapshotCheckCache(final SnapshotCheckCache cache, final File cacheFile) {
+        try {
+            cache.write(cacheFile);
+        } catch (IOException e) {
+            getLog().warn("Cannot write SNAPSHOT check cache.", e);
+        }
+    }
+
+    /**
+     * Runs independent checks. If {@link #concurrentPreflight} is enabled the
+     * checks are executed concurrently and all failures are reported together,
+     * otherwise they are executed one by one until the first failure.
+     * 
+     * @param checks
+     *            Checks to run. They must not change the working tree or
+     *            references other than remote-tracking ones.
      * @throws MojoFailureException
-     *             Shouldn't happen, actually.
+     *             If any check fails.
      * @throws CommandLineException
      *             If command line execution fails.
      */
+    protected void runPreflightChecks(final List<PreflightCheck> checks)
+            throws MojoFailureException, CommandLineException {
+        if (!concurrentPreflight || checks.size() < 2) {
+            for (PreflightCheck check : checks) {
+                check.run();
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(checks.size(), MAX_PREFLIGHT_THREADS),
+                r -> {
+                    final Thread thread = new Thread(r, "gitflow-preflight");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        final List<Exception> failures = new ArrayList<>();
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (PreflightCheck check : checks) {
+                futures.add(executor.submit(() -> {
+                    check.run();
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    failures.add((Exception) e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException("Interrupted while running pre-flight checks.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failures.size() == 1) {
+            final Exception failure = failures.get(0);
+            if (failure instanceof MojoFailureException) {
+                throw (MojoFailureException) failure;
+            } else if (failure instanceof CommandLineException) {
+                throw (CommandLineException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+        }
+        if (!failures.isEmpty()) {
+            final StringBuilder message = new StringBuilder(failures.size() + " pre-flight checks failed:");
+            for (Exception failure : failures) {
+                message.append(LS).append(" - ").append(failure.getMessage());
+            }
+            final MojoFailureException exception = new MojoFailureException(message.toString());
+            for (Exception failure : failures) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Checks if branch name is acceptable, using the same rules as
+     * <code>git check-ref-format --allow-onelevel</code> without starting Git.
+     * 
+     * @param branchName
+     *            Branch name to check.
+     * @return <code>true</code> when name is valid, <code>false</code> otherwise.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             Shouldn't happen, actually.
+     */
     protected boolean validBranchName(final String branchName) throws MojoFailureException, CommandLineException {
-        CommandResult res = executeGitCommandExitCode("check-ref-format", "--allow-onelevel", branchName);
-        return res.getExitCode() == SUCCESS_EXIT_CODE;
+        return GitRefFormat.isValid(branchName);
     }
 
     /**
@@ -495,7 +1292,9 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     }
 
     /**
-     * Executes git commands to check for uncommitted changes.
+     * Executes git status to check for uncommitted changes. Unstaged and
+     * staged changes are found in one pass, which uses the file system monitor
+     * (<code>core.fsmonitor</code>) if it is configured.
      * 
      * @return <code>true</code> when there are uncommitted changes,
      *         <code>false</code> otherwise.
@@ -505,38 +1304,24 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution returns false code.
      */
     private boolean executeGitHasUncommitted() throws MojoFailureException, CommandLineException {
-        boolean uncommited = false;
+        final long start = System.nanoTime();
 
-        // 1 if there were differences and 0 means no differences
+        // git status --porcelain --untracked-files=no
+        final CommandResult statusCommandResult = executeGitCommandExitCode("status", "--porcelain",
+                "--untracked-files=no");
 
-        // git diff --no-ext-diff --ignore-submodules --quiet --exit-code
-        final CommandResult diffCommandResult = executeGitCommandExitCode(
-                "diff", "--no-ext-diff", "--ignore-submodules", "--quiet", "--exit-code");
-
-        String error = null;
-
-        if (diffCommandResult.getExitCode() == SUCCESS_EXIT_CODE) {
-            // git diff-index --cached --quiet --ignore-submodules HEAD --
-            final CommandResult diffIndexCommandResult = executeGitCommandExitCode(
-                    "diff-index", "--cached", "--quiet", "--ignore-submodules", "HEAD", "--");
-            if (diffIndexCommandResult.getExitCode() != SUCCESS_EXIT_CODE) {
-                error = diffIndexCommandResult.getError();
-                uncommited = true;
-            }
-        } else {
-            error = diffCommandResult.getError();
-            uncommited = true;
-        }
+        getLog().debug("Uncommitted changes check took " + (System.nanoTime() - start) / 1000000L + " ms.");
 
-        if (StringUtils.isNotBlank(error)) {
-            throw new MojoFailureException(error);
+        if (statusCommandResult.getExitCode() != SUCCESS_EXIT_CODE) {
+            throw new MojoFailureException(statusCommandResult.getError());
         }
 
-        return uncommited;
+        return StringUtils.isNotBlank(statusCommandResult.getOut());
     }
 
     /**
-     * Executes git config commands to set Git Flow configuration.
+     * Executes git config commands to set Git Flow configuration. The current
+     * configuration is read once and only changed options are written.
      * 
      * @throws MojoFailureException
      *             Shouldn't happen, actually.
@@ -544,16 +1329,48 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected void initGitFlowConfig() throws MojoFailureException, CommandLineException {
-        gitSetConfig("gitflow.branch.master", gitFlowConfig.getProductionBranch());
-        gitSetConfig("gitflow.branch.develop", gitFlowConfig.getDevelopmentBranch());
-
-        gitSetConfig("gitflow.prefix.feature", gitFlowConfig.getFeatureBranchPrefix());
-        gitSetConfig("gitflow.prefix.release", gitFlowConfig.getReleaseBranchPrefix());
-        gitSetConfig("gitflow.prefix.hotfix", gitFlowConfig.getHotfixBranchPrefix());
-        gitSetConfig("gitflow.prefix.support", gitFlowConfig.getSupportBranchPrefix());
-        gitSetConfig("gitflow.prefix.versiontag", gitFlowConfig.getVersionTagPrefix());
+        final Map<String, String> config = new LinkedHashMap<>();
+        config.put("gitflow.branch.master", gitFlowConfig.getProductionBranch());
+        config.put("gitflow.branch.develop", gitFlowConfig.getDevelopmentBranch());
+
+        config.put("gitflow.prefix.feature", gitFlowConfig.getFeatureBranchPrefix());
+        config.put("gitflow.prefix.release", gitFlowConfig.getReleaseBranchPrefix());
+        config.put("gitflow.prefix.hotfix", gitFlowConfig.getHotfixBranchPrefix());
+        config.put("gitflow.prefix.support", gitFlowConfig.getSupportBranchPrefix());
+        config.put("gitflow.prefix.versiontag", gitFlowConfig.getVersionTagPrefix());
+
+        config.put("gitflow.origin", gitFlowConfig.getOrigin());
+
+        // git config --local -z --get-regexp ^gitflow\.
+        // exit code is 1 if there is no such options
+        final Map<String, String> current = parseConfig(
+                executeGitCommandExitCode("config", "--local", "-z", "--get-regexp", "^gitflow\\.").getOut());
+
+        for (Entry<String, String> option : config.entrySet()) {
+            if (!StringUtils.defaultString(option.getValue()).equals(current.get(option.getKey()))) {
+                gitSetConfig(option.getKey(), option.getValue());
+            }
+        }
+    }
 
-        gitSetConfig("gitflow.origin", gitFlowConfig.getOrigin());
+    /**
+     * Parses output of the git config <code>-z</code> option.
+     * 
+     * @param output
+     *            Output of the git config command.
+     * @return Values keyed by option name, <code>null</code> value for options
+     *         without value.
+     */
+    private static Map<String, String> parseConfig(final String output) {
+        final Map<String, String> config = new LinkedHashMap<>();
+        // key LF value NUL
+        for (String entry : output.split("\0")) {
+            final String[] keyValue = StringUtils.stripStart(entry, null).split("\\r?\\n", 2);
+            if (StringUtils.isNotBlank(keyValue[0])) {
+                config.put(keyValue[0], keyValue.length == 2 ? StringUtils.stripEnd(keyValue[1], "\r\n") : null);
+            }
+        }
+        return config;
     }
 
     /**
@@ -621,6 +1438,30 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
             wildcard = "**";
         }
 
+        final RefSnapshot snapshot = getRefSnapshot();
+        if (snapshot != null) {
+            return StringUtils.join(snapshot.find(refs + branchName + wildcard, firstMatch).iterator(), LS);
+        }
+
+        final GitRefDatabase refDatabase = getGitRefDatabase();
+        if (refDatabase != null) {
+            try {
+                final SortedMap<String, String> refMap = refDatabase.readRefs("refs/");
+                final List<String> names = new ArrayList<>();
+                for (String ref : refMap.keySet()) {
+                    if (GitRefDatabase.matches(refs + branchName + wildcard, ref)) {
+                        names.add(GitRefDatabase.shortenRefName(ref, refMap.keySet(), true));
+                        if (firstMatch) {
+                            break;
+                        }
+                    }
+                }
+                return StringUtils.join(names.iterator(), LS);
+            } catch (IOException e) {
+                getLog().debug("Cannot read Git references, falling back to Git command.", e);
+            }
+        }
+
         String branches;
         if (firstMatch) {
             branches = executeGitCommandReturn("for-each-ref", "--count=1",
@@ -694,6 +1535,19 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected String gitCurrentBranch() throws MojoFailureException, CommandLineException {
+        final GitRefDatabase refDatabase = getGitRefDatabase();
+        if (refDatabase != null) {
+            try {
+                final String head = refDatabase.readSymbolicHead();
+                // detached HEAD is reported by the Git command
+                if (head != null) {
+                    return refDatabase.shortenRefName(head, false);
+                }
+            } catch (IOException e) {
+                getLog().debug("Cannot read Git HEAD, falling back to Git command.", e);
+            }
+        }
+
         String name = executeGitCommandReturn("symbolic-ref", "-q", "--short", "HEAD");
         name = StringUtils.strip(name);
         return name;
@@ -712,8 +1566,7 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected boolean gitCheckBranchExists(final String branchName) throws MojoFailureException, CommandLineException {
-        CommandResult commandResult = executeGitCommandExitCode("show-ref", "--verify", "--quiet", "refs/heads/" + branchName);
-        return commandResult.getExitCode() == SUCCESS_EXIT_CODE;
+        return gitCheckRefExists("refs/heads/" + branchName);
     }
 
     /**
@@ -728,10 +1581,386 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected boolean gitCheckTagExists(final String tagName) throws MojoFailureException, CommandLineException {
-        CommandResult commandResult = executeGitCommandExitCode("show-ref", "--verify", "--quiet", "refs/tags/" + tagName);
+        return gitCheckRefExists("refs/tags/" + tagName);
+    }
+
+    /**
+     * Checks if reference with given full name exists.
+     *
+     * @param refName
+     *            Full name of the reference to check.
+     * @return <code>true</code> if reference exists, <code>false</code>
+     *         otherwise.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitCheckRefExists(final String refName) throws MojoFailureException, CommandLineException {
+        final RefSnapshot snapshot = getRefSnapshot();
+        if (snapshot != null) {
+            return snapshot.contains(refName);
+        }
+
+        final GitRefDatabase refDatabase = getGitRefDatabase();
+        if (refDatabase != null) {
+            try {
+                return refDatabase.resolve(refName) != null;
+            } catch (IOException e) {
+                getLog().debug("Cannot read Git reference '" + refName + "', falling back to Git command.", e);
+            }
+        }
+
+        final GitCatFileProcess catFileProcess = getGitCatFileProcess();
+        if (catFileProcess != null) {
+            try {
+                return catFileProcess.resolve(refName) != null;
+            } catch (IOException e) {
+                disableGitCatFileProcess(e);
+            }
+        }
+
+        CommandResult commandResult = executeGitCommandExitCode("show-ref", "--verify", "--quiet", refName);
         return commandResult.getExitCode() == SUCCESS_EXIT_CODE;
     }
 
+    /**
+     * Gets type of the object.
+     *
+     * @param revision
+     *            Revision of the object.
+     * @return Object type, e.g. <code>commit</code> or <code>tag</code>, or
+     *         <code>null</code> if object doesn't exist.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitObjectType(final String revision) throws MojoFailureException, CommandLineException {
+        final GitCatFileProcess catFileProcess = getGitCatFileProcess();
+        if (catFileProcess != null) {
+            try {
+                final GitCatFileProcess.ObjectInfo info = catFileProcess.resolve(revision);
+                return info == null ? null : info.getType();
+            } catch (IOException e) {
+                disableGitCatFileProcess(e);
+            }
+        }
+
+        CommandResult type = executeGitCommandExitCode("cat-file", "-t", revision);
+        return type.getExitCode() == SUCCESS_EXIT_CODE ? StringUtils.strip(type.getOut()) : null;
+    }
+
+    /**
+     * Resolves revision to the commit object name.
+     *
+     * @param revision
+     *            Revision to resolve.
+     * @return Commit object name.
+     * @throws MojoFailureException
+     *             If revision cannot be resolved to commit.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitResolveCommit(final String revision) throws MojoFailureException, CommandLineException {
+        final GitCatFileProcess catFileProcess = getGitCatFileProcess();
+        if (catFileProcess != null) {
+            try {
+                final GitCatFileProcess.ObjectInfo info = catFileProcess.resolve(revision + "^{commit}");
+                if (info != null) {
+                    return info.getId();
+                }
+            } catch (IOException e) {
+                disableGitCatFileProcess(e);
+            }
+        }
+
+        return StringUtils.strip(executeGitCommandReturn("rev-parse", "--verify", revision + "^{commit}"));
+    }
+
+    /**
+     * Reads content of the blob.
+     *
+     * @param revision
+     *            Revision of the blob, e.g. <code>develop:pom.xml</code>.
+     * @return Blob content or <code>null</code> if blob doesn't exist.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitReadBlob(final String revision) throws MojoFailureException, CommandLineException {
+        final GitCatFileProcess catFileProcess = getGitCatFileProcess();
+        if (catFileProcess != null) {
+            try {
+                return catFileProcess.readBlob(revision);
+            } catch (IOException e) {
+                disableGitCatFileProcess(e);
+            }
+        }
+
+        CommandResult blob = executeGitCommandExitCode("cat-file", "blob", revision);
+        return blob.getExitCode() == SUCCESS_EXIT_CODE ? blob.getOut() : null;
+    }
+
+    /**
+     * Gets snapshot of the local branches, remote branches and tags, loads it
+     * if needed.
+     *
+     * @return Snapshot of references or <code>null</code> if caching is
+     *         disabled.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private synchronized RefSnapshot getRefSnapshot() throws MojoFailureException, CommandLineException {
+        if (!cacheGitRefs) {
+            return null;
+        }
+        if (refSnapshot == null) {
+            final String[] prefixes = { "refs/heads/", "refs/remotes/" + gitFlowConfig.getOrigin() + "/", "refs/tags/" };
+
+            final GitRefDatabase refDatabase = getGitRefDatabase();
+            if (refDatabase != null) {
+                try {
+                    refSnapshot = new RefSnapshot(refDatabase.readRefs(prefixes).keySet());
+                } catch (IOException e) {
+                    getLog().debug("Cannot read Git references, falling back to Git command.", e);
+                }
+            }
+            if (refSnapshot == null) {
+                String refs = executeGitCommandReturn("for-each-ref", "--format=%(refname)", prefixes[0], prefixes[1],
+                        prefixes[2]);
+                // https://github.com/aleksandr-m/gitflow-maven-plugin/issues/3
+                refs = StringUtils.strip(removeQuotes(refs));
+                refSnapshot = new RefSnapshot(
+                        StringUtils.isBlank(refs) ? Collections.<String> emptyList() : Arrays.asList(refs.split("\\r?\\n")));
+            }
+        }
+        return refSnapshot;
+    }
+
+    /**
+     * Adds reference to the snapshot if it is loaded.
+     *
+     * @param refName
+     *            Full reference name.
+     */
+    private synchronized void refSnapshotAdd(final String refName) {
+        if (refSnapshot != null) {
+            refSnapshot.add(refName);
+        }
+    }
+
+    /**
+     * Adds remote-tracking reference of the pushed branch to the snapshot if it
+     * is loaded and contains the local branch, i.e. the name isn't a tag.
+     *
+     * @param branchName
+     *            Pushed branch name.
+     */
+    private synchronized void refSnapshotAddPushed(final String branchName) {
+        if (refSnapshot != null && refSnapshot.contains("refs/heads/" + branchName)) {
+            refSnapshot.add("refs/remotes/" + gitFlowConfig.getOrigin() + "/" + branchName);
+        }
+    }
+
+    /**
+     * Removes reference from the snapshot if it is loaded.
+     *
+     * @param refName
+     *            Full reference name.
+     */
+    private synchronized void refSnapshotRemove(final String refName) {
+        if (refSnapshot != null) {
+            refSnapshot.remove(refName);
+        }
+    }
+
+    /**
+     * Drops the snapshot so it is loaded again on the next use.
+     */
+    private synchronized void invalidateRefSnapshot() {
+        refSnapshot = null;
+    }
+
+    /**
+     * Drops the snapshot if it is loaded and doesn't contain given reference.
+     *
+     * @param refName
+     *            Full reference name.
+     */
+    private synchronized void invalidateRefSnapshot(final String refName) {
+        if (refSnapshot != null && !refSnapshot.contains(refName)) {
+            refSnapshot = null;
+        }
+    }
+
+    /**
+     * Gets long-lived git cat-file process, starts it if needed.
+     *
+     * @return Git cat-file process or <code>null</code> if it is disabled or
+     *         cannot be started.
+     */
+    private synchronized GitCatFileProcess getGitCatFileProcess() {
+        if (!persistentGitProcess || gitCatFileProcessFailed) {
+            return null;
+        }
+        if (gitCatFileProcess == null || !gitCatFileProcess.isAlive()) {
+            initExecutables();
+            try {
+                gitCatFileProcess = GitCatFileProcess.start(cmdGit.getExecutable());
+            } catch (IOException e) {
+                getLog().debug("Cannot start git cat-file process, Git commands will be used.", e);
+                gitCatFileProcessFailed = true;
+                gitCatFileProcess = null;
+            }
+        }
+        return gitCatFileProcess;
+    }
+
+    /**
+     * Stops long-lived git cat-file process after a failure, further queries
+     * use Git commands.
+     *
+     * @param e
+     *            Failure cause.
+     */
+    private synchronized void disableGitCatFileProcess(final IOException e) {
+        getLog().debug("Cannot query git cat-file process, falling back to Git command.", e);
+        closeGitCatFileProcess();
+        gitCatFileProcessFailed = true;
+    }
+
+    /**
+     * Stops long-lived git cat-file process if it is running.
+     */
+    private synchronized void closeGitCatFileProcess() {
+        if (gitCatFileProcess != null) {
+            try {
+                gitCatFileProcess.close();
+            } catch (IOException e) {
+                getLog().debug("Cannot stop git cat-file process.", e);
+            }
+            gitCatFileProcess = null;
+        }
+    }
+
+    /**
+     * Releases resources acquired during the mojo execution, e.g. stops
+     * long-lived Git processes. Should be called at the end of the execution.
+     */
+    protected void cleanup() {
+        closeGitCatFileProcess();
+        moveMavenOutputSpool();
+        writeCommandProfile();
+    }
+
+    /**
+     * Gets commands profiler if profiling or tracing is enabled.
+     * 
+     * @return Commands profiler or <code>null</code>.
+     */
+    private synchronized CommandProfiler getCommandProfiler() {
+        if ((profileCommands || traceWorkflow) && commandProfiler == null) {
+            commandProfiler = new CommandProfiler();
+        }
+        return commandProfiler;
+    }
+
+    /**
+     * Starts span of the workflow phase if {@link #traceWorkflow} is enabled.
+     * 
+     * @param name
+     *            Phase name.
+     * @param detail
+     *            Optional detail, e.g. branch name.
+     * @return Started span, should be closed with try-with-resources.
+     */
+    private CommandProfiler.Span traceSpan(final String name, final String detail) {
+        if (!traceWorkflow) {
+            return CommandProfiler.Span.NONE;
+        }
+        return getCommandProfiler().span(name, detail);
+    }
+
+    /**
+     * Prints commands profile summary and writes the profile and the trace into
+     * the build directory.
+     */
+    private void writeCommandProfile() {
+        if (commandProfiler == null) {
+            return;
+        }
+        final String directory = mavenSession.getCurrentProject().getBuild().getDirectory();
+        if (profileCommands) {
+            for (String line : commandProfiler.summary()) {
+                getLog().info(line);
+            }
+            final File target = new File(directory, "gitflow-profile.json");
+            try {
+                commandProfiler.writeJson(target);
+                getLog().info("Commands profile is written into " + target + ".");
+            } catch (IOException e) {
+                getLog().warn("Cannot write commands profile into " + target + ".", e);
+            }
+        }
+        if (traceWorkflow) {
+            final File target = new File(directory, "gitflow-trace.json");
+            final List<String> goals = mavenSession.getGoals();
+            try {
+                commandProfiler.writeTrace(target,
+                        goals == null || goals.isEmpty() ? "gitflow" : StringUtils.join(goals.iterator(), " "));
+                getLog().info("Workflow trace is written into " + target + ".");
+            } catch (IOException e) {
+                getLog().warn("Cannot write workflow trace into " + target + ".", e);
+            }
+        }
+        commandProfiler = null;
+    }
+
+    /**
+     * Moves temporary file with the Maven commands output into the build
+     * directory.
+     */
+    private void moveMavenOutputSpool() {
+        if (mavenOutputSpoolFile == null) {
+            return;
+        }
+        final File target = new File(mavenSession.getCurrentProject().getBuild().getDirectory(),
+                "gitflow-maven-output.log");
+        try {
+            Files.createDirectories(target.getParentFile().toPath());
+            Files.move(mavenOutputSpoolFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            getLog().info("Maven commands output is written into " + target + ".");
+        } catch (IOException e) {
+            getLog().warn("Cannot move Maven commands output into " + target + ". It is kept in "
+                    + mavenOutputSpoolFile + ".", e);
+        }
+        mavenOutputSpoolFile = null;
+    }
+
+    /**
+     * Gets Git reference database which reads references directly from the
+     * repository files.
+     *
+     * @return Git reference database or <code>null</code> if references cannot
+     *         be read from files.
+     */
+    private synchronized GitRefDatabase getGitRefDatabase() {
+        if (!gitRefDatabaseInitialized) {
+            gitRefDatabaseInitialized = true;
+            if (readGitRefs) {
+                gitRefDatabase = GitRefDatabase.open(new File("").getAbsoluteFile());
+                if (gitRefDatabase == null) {
+                    getLog().debug("Git references cannot be read from files, Git commands will be used.");
+                }
+            }
+        }
+        return gitRefDatabase;
+    }
+
     /**
      * Executes git checkout.
      *
@@ -746,6 +1975,10 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         getLog().info("Checking out '" + branchName + "' branch.");
 
         executeGitCommand("checkout", branchName);
+        invalidateRootProject();
+
+        // local branch might be created from the remote one
+        invalidateRefSnapshot("refs/heads/" + branchName);
     }
 
     /**
@@ -765,6 +1998,9 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         getLog().info("Creating a new branch '" + newBranchName + "' from '" + fromBranchName + "' and checking it out.");
 
         executeGitCommand("checkout", "-b", newBranchName, fromBranchName);
+        invalidateRootProject();
+
+        refSnapshotAdd("refs/heads/" + newBranchName);
     }
 
     /**
@@ -784,6 +2020,8 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         getLog().info("Creating a new branch '" + newBranchName + "' from '" + fromBranchName + "'.");
 
         executeGitCommand("branch", newBranchName, fromBranchName);
+
+        refSnapshotAdd("refs/heads/" + newBranchName);
     }
 
     /**
@@ -805,7 +2043,7 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     }
 
     /**
-     * Executes git commit -a -m.
+     * Executes git commit -m.
      * 
      * @param message
      *            Commit message.
@@ -819,8 +2057,10 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
     }
 
     /**
-     * Executes git commit -a -m, replacing <code>@{map.key}</code> with
-     * <code>map.value</code>.
+     * Executes git commit -m, replacing <code>@{map.key}</code> with
+     * <code>map.value</code>. Only the files modified by the plugin are
+     * committed if they are known (e.g. versions were updated in process),
+     * otherwise all changes are committed with <code>-a</code>.
      * 
      * @param message
      *            Commit message.
@@ -833,8 +2073,7 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      */
     protected void gitCommit(String message, Map<String, String> messageProperties) throws MojoFailureException, CommandLineException {
         if ((gitModulesExists && updateGitSubmodules == null) || Boolean.TRUE.equals(updateGitSubmodules)) {
-            getLog().info("Updating git submodules before commit.");
-            executeGitCommand("submodule", "update");
+            gitSubmoduleUpdate();
         }
 
         if (StringUtils.isNotBlank(commitMessagePrefix)) {
@@ -843,69 +2082,317 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
 
         message = replaceProperties(message, messageProperties);
 
+        final List<String> args = new ArrayList<>();
+        args.add("commit");
+        // commit only the known files, so the whole working tree isn't scanned
+        boolean onlyModified = modifiedFiles != null && !modifiedFiles.isEmpty();
+        if (onlyModified) {
+            int length = 0;
+            for (String path : modifiedFiles) {
+                length += path.length() + 3;
+            }
+            onlyModified = length <= MAX_COMMIT_PATHS_LENGTH;
+        }
+        if (!onlyModified) {
+            args.add("-a");
+        }
         if (gpgSignCommit) {
             getLog().info("Committing changes. GPG-signed.");
 
-            executeGitCommand("commit", "-a", "-S", "-m", message);
+            args.add("-S");
         } else {
             getLog().info("Committing changes.");
-
-            executeGitCommand("commit", "-a", "-m", message);
         }
+        args.add("-m");
+        args.add(message);
+        if (onlyModified) {
+            args.add("--");
+            for (String path : modifiedFiles) {
+                // relative to the top-level directory, not to the current one
+                args.add(":/" + path);
+            }
+        }
+
+        executeGitCommand(args.toArray(new String[0]));
+
+        modifiedFiles = new LinkedHashSet<>();
     }
 
     /**
-     * Executes git rebase or git merge --ff-only or git merge --no-ff or git merge.
+     * Executes git submodule update. If {@link #updateChangedGitSubmodulesOnly}
+     * is enabled the update is skipped when submodules weren't changed since
+     * the last update.
      * 
-     * @param branchName
-     *            Branch name to merge.
-     * @param rebase
-     *            Do rebase.
-     * @param noff
-     *            Merge with --no-ff.
-     * @param ffonly
-     *            Merge with --ff-only.
-     * @param message
-     *            Merge commit message.
-     * @param messageProperties
-     *            Properties to replace in message.
      * @throws MojoFailureException
      *             If command line execution returns false code.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void gitMerge(final String branchName, boolean rebase, boolean noff, boolean ffonly, String message,
-            Map<String, String> messageProperties)
-            throws MojoFailureException, CommandLineException {
-        String sign = null;
-        if (gpgSignCommit) {
-            sign = "-S";
-        }
-        String msgParam = null;
-        String msg = null;
-        if (StringUtils.isNotBlank(message)) {
-            if (StringUtils.isNotBlank(commitMessagePrefix)) {
-                message = commitMessagePrefix + message;
+    private void gitSubmoduleUpdate() throws MojoFailureException, CommandLineException {
+        String state = null;
+        if (updateChangedGitSubmodulesOnly) {
+            state = gitSubmoduleState();
+            if (state != null && state.equals(gitSubmoduleState)) {
+                getLog().info("Git submodules weren't changed, skipping update.");
+                return;
             }
-
-            msgParam = "-m";
-            msg = replaceProperties(message, messageProperties);
         }
-        if (rebase) {
-            getLog().info("Rebasing '" + branchName + "' branch.");
-            executeGitCommand("rebase", sign, branchName);
-        } else if (ffonly) {
-            getLog().info("Merging (--ff-only) '" + branchName + "' branch.");
-            executeGitCommand("merge", "--ff-only", sign, branchName);
-        } else if (noff) {
-            getLog().info("Merging (--no-ff) '" + branchName + "' branch.");
-            executeGitCommand("merge", "--no-ff", sign, branchName, msgParam, msg);
+
+        getLog().info("Updating git submodules before commit.");
+        if (gitSubmoduleJobs != null && gitSubmoduleJobs > 0) {
+            executeGitCommand("submodule", "update", "--jobs", String.valueOf(gitSubmoduleJobs));
         } else {
-            getLog().info("Merging '" + branchName + "' branch.");
-            executeGitCommand("merge", sign, branchName, msgParam, msg);
+            executeGitCommand("submodule", "update");
+        }
+
+        gitSubmoduleState = state;
+    }
+
+    /**
+     * Gets state of the submodules, i.e. hash of the <code>.gitmodules</code>
+     * file and the gitlinks in the index.
+     * 
+     * @return State or <code>null</code> if it cannot be determined.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitSubmoduleState() throws MojoFailureException, CommandLineException {
+        final File gitModules = new File(".gitmodules");
+        final String hash = gitModules.isFile() ? hashFile(gitModules) : null;
+        if (hash == null) {
+            return null;
+        }
+
+        if (!hash.equals(gitModulesHash)) {
+            // git config -f .gitmodules -z --get-regexp ^submodule\..*\.path$
+            final CommandResult paths = executeGitCommandExitCode("config", "-f", ".gitmodules", "-z",
+                    "--get-regexp", "^submodule\\..*\\.path$");
+            gitSubmodulePaths = new ArrayList<>();
+            for (String path : parseConfig(paths.getOut()).values()) {
+                if (StringUtils.isNotBlank(path)) {
+                    gitSubmodulePaths.add(path);
+                }
+            }
+            gitModulesHash = hash;
+        }
+        if (gitSubmodulePaths.isEmpty()) {
+            return hash;
+        }
+
+        final List<String> args = new ArrayList<>(Arrays.asList("ls-files", "--stage", "--"));
+        for (String path : gitSubmodulePaths) {
+            args.add(":(literal)" + path);
+        }
+        return hash + LS + executeGitCommandReturn(args.toArray(new String[0]));
+    }
+
+    /**
+     * Executes git rebase or git merge --ff-only or git merge --no-ff or git merge.
+     * 
+     * @param branchName
+     *            Branch name to merge.
+     * @param rebase
+     *            Do rebase.
+     * @param noff
+     *            Merge with --no-ff.
+     * @param ffonly
+     *            Merge with --ff-only.
+     * @param message
+     *            Merge commit message.
+     * @param messageProperties
+     *            Properties to replace in message.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitMerge(final String branchName, boolean rebase, boolean noff, boolean ffonly, String message,
+            Map<String, String> messageProperties)
+            throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("merge", branchName)) {
+            invalidateRootProject();
+
+            String sign = null;
+            if (gpgSignCommit) {
+                sign = "-S";
+            }
+            String msgParam = null;
+            String msg = null;
+            if (StringUtils.isNotBlank(message)) {
+                if (StringUtils.isNotBlank(commitMessagePrefix)) {
+                    message = commitMessagePrefix + message;
+                }
+
+                msgParam = "-m";
+                msg = replaceProperties(message, messageProperties);
+            }
+            if (rebase) {
+                getLog().info("Rebasing '" + branchName + "' branch.");
+                executeGitCommand("rebase", sign, branchName);
+            } else if (ffonly) {
+                getLog().info("Merging (--ff-only) '" + branchName + "' branch.");
+                executeGitCommand("merge", "--ff-only", sign, branchName);
+            } else if (noff) {
+                getLog().info("Merging (--no-ff) '" + branchName + "' branch.");
+                executeGitCommand("merge", "--no-ff", sign, branchName, msgParam, msg);
+            } else {
+                getLog().info("Merging '" + branchName + "' branch.");
+                executeGitCommand("merge", sign, branchName, msgParam, msg);
+            }
         }
     }
 
+    /**
+     * Merges branch into the target branch. If {@link #inMemoryMerge} is enabled
+     * and the target branch isn't checked out tries to merge without checking
+     * it out, otherwise checks out the target branch and executes
+     * {@link #gitMerge(String, boolean, boolean, boolean, String, Map)}.
+     * 
+     * @param targetBranchName
+     *            Branch name to merge into.
+     * @param branchName
+     *            Branch name to merge.
+     * @param rebase
+     *            Do rebase.
+     * @param noff
+     *            Merge with --no-ff.
+     * @param ffonly
+     *            Merge with --ff-only.
+     * @param message
+     *            Merge commit message.
+     * @param messageProperties
+     *            Properties to replace in message.
+     * @return <code>true</code> if branch was merged without checking out the
+     *         target branch, <code>false</code> if target branch was checked
+     *         out.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected boolean gitMergeInto(final String targetBranchName, final String branchName, boolean rebase,
+            boolean noff, boolean ffonly, String message, Map<String, String> messageProperties)
+            throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("merge", branchName + " into " + targetBranchName)) {
+            if (inMemoryMerge && !rebase && !targetBranchName.equals(gitCurrentBranch())
+                    && gitMergeInMemory(targetBranchName, branchName, noff, ffonly, message, messageProperties)) {
+                return true;
+            }
+
+            gitCheckout(targetBranchName);
+            gitMerge(branchName, rebase, noff, ffonly, message, messageProperties);
+            return false;
+        }
+    }
+
+    /**
+     * Merges branch into the target branch without touching the working tree.
+     * 
+     * @param targetBranchName
+     *            Branch name to merge into.
+     * @param branchName
+     *            Branch name to merge.
+     * @param noff
+     *            Merge with --no-ff.
+     * @param ffonly
+     *            Merge with --ff-only.
+     * @param message
+     *            Merge commit message.
+     * @param messageProperties
+     *            Properties to replace in message.
+     * @return <code>true</code> if branch was merged, <code>false</code> if it
+     *         must be merged in the working tree.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitMergeInMemory(final String targetBranchName, final String branchName, boolean noff,
+            boolean ffonly, String message, Map<String, String> messageProperties)
+            throws MojoFailureException, CommandLineException {
+        final String targetRef = "refs/heads/" + targetBranchName;
+
+        // merge of the annotated tag uses the tag message
+        if (!"commit".equals(gitObjectType(branchName))) {
+            return false;
+        }
+
+        final String targetId = gitResolveCommit(targetRef);
+        final String branchId = gitResolveCommit(branchName);
+
+        if (gitIsAncestor(branchId, targetId)) {
+            getLog().info("Branch '" + targetBranchName + "' is already up to date with '" + branchName + "'.");
+            return true;
+        }
+
+        final String newId;
+        if (!noff && gitIsAncestor(targetId, branchId)) {
+            getLog().info("Fast-forwarding '" + targetBranchName + "' branch to '" + branchName + "'.");
+            newId = branchId;
+        } else if (ffonly) {
+            return false;
+        } else {
+            CommandResult mergeTree = executeGitCommandExitCode("merge-tree", "--write-tree", "--no-messages",
+                    targetId, branchId);
+            if (mergeTree.getExitCode() != SUCCESS_EXIT_CODE) {
+                getLog().info("Cannot merge '" + branchName + "' into '" + targetBranchName
+                        + "' without checkout, falling back to git merge.");
+                return false;
+            }
+            final String treeId = StringUtils.strip(mergeTree.getOut().split("\\r?\\n")[0]);
+
+            String msg;
+            if (StringUtils.isNotBlank(message)) {
+                if (StringUtils.isNotBlank(commitMessagePrefix)) {
+                    message = commitMessagePrefix + message;
+                }
+                msg = replaceProperties(message, messageProperties);
+            } else {
+                msg = "Merge branch '" + branchName + "'";
+                if (!"master".equals(targetBranchName) && !"main".equals(targetBranchName)) {
+                    msg += " into " + targetBranchName;
+                }
+            }
+
+            if (gpgSignCommit) {
+                getLog().info("Merging (--no-ff) '" + branchName + "' branch into '" + targetBranchName
+                        + "' without checkout. GPG-signed.");
+            } else {
+                getLog().info("Merging (--no-ff) '" + branchName + "' branch into '" + targetBranchName
+                        + "' without checkout.");
+            }
+
+            newId = StringUtils.strip(executeGitCommandReturn("commit-tree", gpgSignCommit ? "-S" : null, treeId,
+                    "-p", targetId, "-p", branchId, "-m", msg));
+        }
+
+        executeGitCommand("update-ref", "-m", "merge " + branchName, targetRef, newId, targetId);
+
+        return true;
+    }
+
+    /**
+     * Executes git merge-base --is-ancestor.
+     * 
+     * @param ancestor
+     *            Possible ancestor commit.
+     * @param descendant
+     *            Possible descendant commit.
+     * @return <code>true</code> if the first commit is an ancestor of the
+     *         second one.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitIsAncestor(final String ancestor, final String descendant)
+            throws MojoFailureException, CommandLineException {
+        return executeGitCommandExitCode("merge-base", "--is-ancestor", ancestor, descendant)
+                .getExitCode() == SUCCESS_EXIT_CODE;
+    }
+
     /**
      * Executes git merge --no-ff.
      * 
@@ -936,8 +2423,11 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected void gitMergeSquash(final String branchName) throws MojoFailureException, CommandLineException {
-        getLog().info("Squashing '" + branchName + "' branch.");
-        executeGitCommand("merge", "--squash", branchName);
+        try (CommandProfiler.Span span = traceSpan("merge", branchName)) {
+            getLog().info("Squashing '" + branchName + "' branch.");
+            executeGitCommand("merge", "--squash", branchName);
+            invalidateRootProject();
+        }
     }
 
     /**
@@ -958,273 +2448,1170 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      */
     protected void gitTag(final String tagName, String message, boolean gpgSignTag, Map<String, String> messageProperties)
             throws MojoFailureException, CommandLineException {
-        message = replaceProperties(message, messageProperties);
+        gitTag(tagName, message, gpgSignTag, messageProperties, null);
+    }
+
+    /**
+     * Executes git tag -a [-s] -m on the given commit.
+     * 
+     * @param tagName
+     *            Name of the tag.
+     * @param message
+     *            Tag message.
+     * @param gpgSignTag
+     *            Make a GPG-signed tag.
+     * @param messageProperties
+     *            Properties to replace in message.
+     * @param target
+     *            Commit to tag, <code>null</code> to tag <code>HEAD</code>.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitTag(final String tagName, String message, boolean gpgSignTag, Map<String, String> messageProperties,
+            final String target) throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("tag", tagName)) {
+            message = replaceProperties(message, messageProperties);
+
+            if (gpgSignTag) {
+                getLog().info("Creating GPG-signed '" + tagName + "' tag.");
+
+                executeGitCommand("tag", "-a", "-s", tagName, "-m", message, target);
+            } else {
+                getLog().info("Creating '" + tagName + "' tag.");
+
+                executeGitCommand("tag", "-a", tagName, "-m", message, target);
+            }
+
+            refSnapshotAdd("refs/tags/" + tagName);
+        }
+    }
+
+    /**
+     * Executes git branch -d.
+     * 
+     * @param branchName
+     *            Branch name to delete.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitBranchDelete(final String branchName) throws MojoFailureException, CommandLineException {
+        getLog().info("Deleting '" + branchName + "' branch.");
+
+        executeGitCommand("branch", "-d", branchName);
+
+        refSnapshotRemove("refs/heads/" + branchName);
+    }
+
+    /**
+     * Executes git branch -D.
+     * 
+     * @param branchName
+     *            Branch name to delete.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitBranchDeleteForce(final String branchName) throws MojoFailureException, CommandLineException {
+        getLog().info("Deleting (-D) '" + branchName + "' branch.");
+
+        executeGitCommand("branch", "-D", branchName);
+
+        refSnapshotRemove("refs/heads/" + branchName);
+    }
+
+    /**
+     * Executes git fetch and checks if local branches exist. If local branch is
+     * present then compares it with the remote, if not then branch is checked
+     * out. All branches are fetched and compared at once.
+     * 
+     * @param branchNames
+     *            Branch names to check.
+     * @return Comparison results keyed by branch name in the given order.
+     * @throws MojoFailureException
+     *             If command line execution returns false code or remote branch is
+     *             ahead of the local branch.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected Map<String, BranchComparison> gitFetchRemoteAndCompareCreate(final String... branchNames)
+            throws MojoFailureException, CommandLineException {
+        final Map<String, BranchComparison> result = gitFetchRemoteAndCompare(branchNames);
+        gitCreateMissingBranches(branchNames);
+        return result;
+    }
+
+    /**
+     * Executes git fetch and compares existing local branches with the remote
+     * ones. Doesn't change the working tree or local branches, so it can be
+     * executed as a {@link PreflightCheck}.
+     * 
+     * @param branchNames
+     *            Branch names to check.
+     * @return Comparison results keyed by branch name in the given order.
+     * @throws MojoFailureException
+     *             If command line execution returns false code or remote branch is
+     *             ahead of the local branch.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected Map<String, BranchComparison> gitFetchRemoteAndCompare(final String... branchNames)
+            throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("fetch/compare", Arrays.toString(branchNames))) {
+            gitFetchRemote(Collections.<String> emptyList(), branchNames);
+
+            final String remotePrefix = "refs/remotes/" + gitFlowConfig.getOrigin() + "/";
+
+            final List<String> toCompare = new ArrayList<>();
+            final Map<String, BranchComparison> result = new LinkedHashMap<>();
+            for (String branchName : branchNames) {
+                if (result.containsKey(branchName)) {
+                    continue;
+                }
+                final boolean localExists = gitCheckBranchExists(branchName);
+                final boolean remoteExists = gitCheckRefExists(remotePrefix + branchName);
+                if (localExists && remoteExists) {
+                    toCompare.add(branchName);
+                }
+                result.put(branchName, new BranchComparison(branchName, localExists, remoteExists, 0, 0));
+            }
+
+            if (!toCompare.isEmpty()) {
+                getLog().info("Comparing local branch(es) " + toCompare + " with remote '" + gitFlowConfig.getOrigin() + "'.");
+
+                final Map<String, int[]> counts = gitCompareBranches(toCompare);
+                for (String branchName : toCompare) {
+                    final int[] c = counts.get(branchName);
+                    result.put(branchName, new BranchComparison(branchName, true, true, c[0], c[1]));
+                }
+            }
+
+            for (BranchComparison comparison : result.values()) {
+                if (comparison.getBehind() > 0) {
+                    throw new MojoFailureException("Remote branch '" + gitFlowConfig.getOrigin() + "/" + comparison.getBranchName()
+                            + "' is ahead of the local branch '" + comparison.getBranchName() + "'. Execute git pull.");
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Checks out local branches which don't exist from the remote ones.
+     * 
+     * @param branchNames
+     *            Branch names to check.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitCreateMissingBranches(final String... branchNames)
+            throws MojoFailureException, CommandLineException {
+        for (String branchName : new LinkedHashSet<>(Arrays.asList(branchNames))) {
+            if (!gitCheckBranchExists(branchName)) {
+                getLog().info("Local branch '" + branchName + "' doesn't exist. Trying check it out from '" + gitFlowConfig.getOrigin() + "'.");
+                gitCreateAndCheckout(branchName, gitFlowConfig.getOrigin() + "/" + branchName);
+            }
+        }
+    }
+
+    /**
+     * Counts commits of the local branches which are not in the remote ones
+     * (ahead) and vice versa (behind). Uses single git <code>for-each-ref</code>
+     * with <code>%(ahead-behind:...)</code> (Git 2.41.0+) or with
+     * <code>%(upstream:track)</code>, and git <code>rev-list</code> only for the
+     * branches which cannot be compared otherwise.
+     * 
+     * @param branchNames
+     *            Branch names which exist locally and on the remote.
+     * @return Ahead and behind counts keyed by branch name.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private Map<String, int[]> gitCompareBranches(final List<String> branchNames)
+            throws MojoFailureException, CommandLineException {
+        final String remotePrefix = "refs/remotes/" + gitFlowConfig.getOrigin() + "/";
+        final Map<String, int[]> counts = new HashMap<>();
+
+        final List<String> refs = new ArrayList<>();
+        final StringBuilder format = new StringBuilder("--format=%(refname)");
+        for (String branchName : branchNames) {
+            refs.add("refs/heads/" + branchName);
+            format.append("%09%(ahead-behind:").append(remotePrefix).append(branchName).append(")");
+        }
+
+        // each ref is compared with every remote branch, but all in one walk
+        final List<String> args = new ArrayList<>();
+        args.add("for-each-ref");
+        args.add(format.toString());
+        args.addAll(refs);
+        CommandResult aheadBehind = executeGitCommandExitCode(args.toArray(new String[0]));
+        if (aheadBehind.getExitCode() == SUCCESS_EXIT_CODE) {
+            for (String line : aheadBehind.getOut().split("\\r?\\n")) {
+                final String[] columns = line.split("\t");
+                final int index = refs.indexOf(columns[0]);
+                if (index >= 0 && columns.length == refs.size() + 1) {
+                    final int[] c = BranchComparison.parseCounts(columns[index + 1]);
+                    if (c != null) {
+                        counts.put(branchNames.get(index), c);
+                    }
+                }
+            }
+        } else {
+            getLog().debug("Git doesn't support %(ahead-behind), trying upstream tracking information.");
+
+            args.set(1, "--format=%(refname)%09%(upstream)%09%(upstream:track,nobracket)");
+            CommandResult track = executeGitCommandExitCode(args.toArray(new String[0]));
+            if (track.getExitCode() == SUCCESS_EXIT_CODE) {
+                for (String line : track.getOut().split("\\r?\\n")) {
+                    final String[] columns = line.split("\t", -1);
+                    final int index = refs.indexOf(columns[0]);
+                    if (index >= 0 && columns.length == 3
+                            && (remotePrefix + branchNames.get(index)).equals(columns[1])) {
+                        final int[] c = BranchComparison.parseTrack(columns[2]);
+                        if (c != null) {
+                            counts.put(branchNames.get(index), c);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (String branchName : branchNames) {
+            if (!counts.containsKey(branchName)) {
+                String revlistout = executeGitCommandReturn("rev-list", "--left-right", "--count",
+                        branchName + "..." + gitFlowConfig.getOrigin() + "/" + branchName);
+                int[] c = BranchComparison.parseCounts(revlistout);
+                counts.put(branchName, c != null ? c : new int[2]);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Executes git fetch and git for-each-ref with <code>refname:short</code>
+     * format. Searches <code>refs/remotes/{gitFlowConfig#origin}/</code>.
+     * 
+     * @param branchName
+     *            Branch name to find.
+     * @param firstMatch
+     *            Return first match.
+     * @return Branch names which matches
+     *         <code>refs/remotes/{gitFlowConfig#origin}/{branchName}*</code>.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected String gitFetchAndFindRemoteBranches(final String branchName, final boolean firstMatch)
+            throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("fetch/compare", branchName)) {
+            gitFetchRemote(Collections.singletonList(branchName));
+            return gitFindBranches("refs/remotes/" + gitFlowConfig.getOrigin() + "/", branchName, firstMatch);
+        }
+    }
+
+    /**
+     * Adds branches which are fetched together with the next fetched branches
+     * if {@link #fetchRequiredBranchesOnly} is enabled. Goals which need several
+     * fetches add all their branches up front, so remote is fetched only once.
+     * 
+     * @param branchPrefixes
+     *            Prefixes of the branches to fetch, e.g. release branch prefix.
+     * @param branchNames
+     *            Names of the branches to fetch.
+     */
+    protected void addRequiredBranches(final Collection<String> branchPrefixes, final String... branchNames) {
+        requiredBranchPrefixes.addAll(branchPrefixes);
+        requiredBranchNames.addAll(Arrays.asList(branchNames));
+    }
+
+    /**
+     * Executes git fetch. Remote is fetched only once per execution, subsequent
+     * calls reuse already updated remote-tracking branches. If
+     * {@link #fetchRequiredBranchesOnly} is enabled only the given branches and
+     * the ones added with {@link #addRequiredBranches(Collection, String...)}
+     * which weren't fetched yet are fetched.
+     * 
+     * @param branchPrefixes
+     *            Prefixes of the branches to fetch.
+     * @param branchNames
+     *            Names of the branches to fetch.
+     * @return <code>true</code> if git fetch returned success exit code,
+     *         <code>false</code> otherwise.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitFetchRemote(final Collection<String> branchPrefixes, final String... branchNames)
+            throws MojoFailureException, CommandLineException {
+        final Set<String> prefixes = new LinkedHashSet<>();
+        final Set<String> names = new LinkedHashSet<>();
+        if (fetchRequiredBranchesOnly) {
+            for (String prefix : requiredBranchPrefixes) {
+                addNotFetched(prefixes, prefix);
+            }
+            for (String prefix : branchPrefixes) {
+                addNotFetched(prefixes, prefix);
+            }
+            for (String branchName : requiredBranchNames) {
+                addNotFetched(names, branchName);
+            }
+            for (String branchName : branchNames) {
+                addNotFetched(names, branchName);
+            }
+            // names are fetched with the prefixes anyway
+            names.removeIf(name -> startsWithAny(name, prefixes));
+
+            if (prefixes.isEmpty() && names.isEmpty() && remoteFetchResult != null) {
+                getLog().debug("Branches " + Arrays.toString(branchNames) + " are already fetched from '"
+                        + gitFlowConfig.getOrigin() + "'.");
+                return remoteFetchResult;
+            }
+        } else if (remoteFetchResult != null) {
+            getLog().debug("Remote '" + gitFlowConfig.getOrigin() + "' is already fetched.");
+            return remoteFetchResult;
+        }
+
+        final String remotePrefix = "refs/remotes/" + gitFlowConfig.getOrigin() + "/";
+        final List<String> refspecs = new ArrayList<>();
+        for (String prefix : prefixes) {
+            refspecs.add("+refs/heads/" + prefix + "*:" + remotePrefix + prefix + "*");
+        }
+        final int exactIndex = refspecs.size();
+        for (String branchName : names) {
+            refspecs.add("+refs/heads/" + branchName + ":" + remotePrefix + branchName);
+        }
+
+        if (refspecs.isEmpty()) {
+            getLog().info("Fetching remote from '" + gitFlowConfig.getOrigin() + "'.");
+        } else {
+            getLog().info("Fetching " + refspecs.size() + " refspec(s) from '" + gitFlowConfig.getOrigin() + "'.");
+        }
+
+        boolean success = gitFetch(refspecs);
+        if (!success && !names.isEmpty()) {
+            // exact refspec fails if remote branch doesn't exist, fetch only existing ones
+            final Set<String> remoteNames = gitListRemoteBranches(names);
+            if (remoteNames != null && remoteNames.size() < names.size()) {
+                getLog().debug("Branches " + remoteNames + " of " + names + " exist on '" + gitFlowConfig.getOrigin()
+                        + "'.");
+                final List<String> existing = new ArrayList<>(refspecs.subList(0, exactIndex));
+                for (String branchName : remoteNames) {
+                    existing.add("+refs/heads/" + branchName + ":" + remotePrefix + branchName);
+                }
+                success = existing.isEmpty() || gitFetch(existing);
+            }
+        }
+
+        // remote branches are changed
+        invalidateRefSnapshot();
+
+        if (success) {
+            fetchedBranchPrefixes.addAll(prefixes);
+            fetchedBranchNames.addAll(names);
+            requiredBranchPrefixes.clear();
+            requiredBranchNames.clear();
+        } else {
+            getLog().warn(
+                    "There were some problems fetching from '"
+                            + gitFlowConfig.getOrigin()
+                            + "'. You can turn off remote fetching by setting the 'fetchRemote' parameter to false.");
+        }
+
+        // keep the first failure so it isn't repeated for every branch
+        remoteFetchResult = (remoteFetchResult == null || remoteFetchResult) && success;
+        return success;
+    }
+
+    /**
+     * Adds branch name or prefix to the set if it isn't blank and wasn't
+     * fetched yet.
+     */
+    private void addNotFetched(final Set<String> set, final String branchName) {
+        if (StringUtils.isNotBlank(branchName) && !fetchedBranchNames.contains(branchName)
+                && !startsWithAny(branchName, fetchedBranchPrefixes)) {
+            set.add(branchName);
+        }
+    }
+
+    private static boolean startsWithAny(final String branchName, final Collection<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (branchName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes git fetch of the given refspecs or of the whole remote if there
+     * are no refspecs.
+     * 
+     * @param refspecs
+     *            Refspecs to fetch.
+     * @return <code>true</code> if git fetch returned success exit code.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitFetch(final List<String> refspecs) throws MojoFailureException, CommandLineException {
+        final List<String> args = new ArrayList<>();
+        args.add("fetch");
+        args.add("--quiet");
+        if (fetchNoTags) {
+            args.add("--no-tags");
+        }
+        if (StringUtils.isNotBlank(fetchNegotiationTips)) {
+            try {
+                String[] tips = CommandLineUtils.translateCommandline(fetchNegotiationTips);
+                for (String tip : tips) {
+                    args.add("--negotiation-tip=" + tip);
+                }
+            } catch (Exception e) {
+                throw new CommandLineException(e.getMessage(), e);
+            }
+        }
+        args.add(gitFlowConfig.getOrigin());
+        args.addAll(refspecs);
+
+        return executeGitCommandExitCode(args.toArray(new String[0])).getExitCode() == SUCCESS_EXIT_CODE;
+    }
+
+    /**
+     * Executes git ls-remote to find which of the branches exist on remote.
+     * 
+     * @param branchNames
+     *            Branch names to find.
+     * @return Branch names which exist on remote or <code>null</code> if remote
+     *         cannot be listed.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private Set<String> gitListRemoteBranches(final Collection<String> branchNames)
+            throws MojoFailureException, CommandLineException {
+        final List<String> args = new ArrayList<>();
+        args.add("ls-remote");
+        args.add("--heads");
+        args.add(gitFlowConfig.getOrigin());
+        for (String branchName : branchNames) {
+            args.add("refs/heads/" + branchName);
+        }
+        final CommandResult result = executeGitCommandExitCode(args.toArray(new String[0]));
+        if (result.getExitCode() != SUCCESS_EXIT_CODE) {
+            return null;
+        }
+        final Set<String> existing = new LinkedHashSet<>();
+        for (String line : result.getOut().split("\\r?\\n")) {
+            final int tab = line.indexOf('\t');
+            if (tab > 0) {
+                final String refName = line.substring(tab + 1).trim();
+                for (String branchName : branchNames) {
+                    if (refName.equals("refs/heads/" + branchName)) {
+                        existing.add(branchName);
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Executes git push, optionally with the <code>--follow-tags</code> argument.
+     * 
+     * @param branchName
+     *            Branch name to push.
+     * @param pushTags
+     *            If <code>true</code> adds <code>--follow-tags</code> argument to
+     *            the git <code>push</code> command.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitPush(final String branchName, boolean pushTags) throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("push", branchName)) {
+            getLog().info("Pushing '" + branchName + "' branch to '" + gitFlowConfig.getOrigin() + "'.");
+
+            List<String> args = new ArrayList<>();
+            args.add("push");
+            args.add("--quiet");
+            args.add("-u");
+
+            if (pushTags) {
+                args.add("--follow-tags");
+            }
+
+            addPushOptions(args);
+
+            args.add(gitFlowConfig.getOrigin());
+            args.add(branchName);
+
+            executeGitCommand(args.toArray(new String[0]));
+
+            refSnapshotAddPushed(branchName);
+        }
+    }
+
+    /**
+     * Pushes branches and tags and deletes remote branches. If
+     * {@link #atomicPush} is enabled everything is done with one
+     * <code>git push --atomic</code> command, otherwise
+     * {@link #gitPush(String, boolean)} and {@link #gitPushDelete(String)} are
+     * called for each reference.
+     * 
+     * @param branchNames
+     *            Branch names to push.
+     * @param pushTags
+     *            If <code>true</code> adds <code>--follow-tags</code> argument to
+     *            the git <code>push</code> command of the branches.
+     * @param tagNames
+     *            Tag names to push, pushed without <code>--follow-tags</code>
+     *            if pushed separately.
+     * @param deleteBranchNames
+     *            Remote branch names to delete.
+     * @throws MojoFailureException
+     *             If command line execution returns false code.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    protected void gitPush(final List<String> branchNames, final boolean pushTags, final List<String> tagNames,
+            final List<String> deleteBranchNames) throws MojoFailureException, CommandLineException {
+        final List<String> refNames = new ArrayList<>(branchNames);
+        refNames.addAll(tagNames);
+        try (CommandProfiler.Span span = traceSpan("push", refNames.toString())) {
+            if (!atomicPush) {
+                for (String branchName : branchNames) {
+                    gitPush(branchName, pushTags);
+                }
+                for (String tagName : tagNames) {
+                    gitPush(tagName, false);
+                }
+                for (String branchName : deleteBranchNames) {
+                    gitPushDelete(branchName);
+                }
+                return;
+            }
+
+            final String remotePrefix = "refs/remotes/" + gitFlowConfig.getOrigin() + "/";
+
+            // deletion of the missing remote branch would reject the whole atomic push
+            final List<String> atomicDeletes = new ArrayList<>();
+            for (String branchName : deleteBranchNames) {
+                if (gitCheckRefExists(remotePrefix + branchName)) {
+                    atomicDeletes.add(branchName);
+                } else {
+                    gitPushDelete(branchName);
+                }
+            }
+
+            if (refNames.isEmpty() && atomicDeletes.isEmpty()) {
+                return;
+            }
+
+            getLog().info("Pushing " + refNames + (atomicDeletes.isEmpty() ? "" : " and deleting " + atomicDeletes)
+                    + " atomically to '" + gitFlowConfig.getOrigin() + "'.");
+
+            List<String> args = new ArrayList<>();
+            args.add("push");
+            args.add("--quiet");
+            args.add("--atomic");
+            args.add("-u");
+
+            if (pushTags) {
+                args.add("--follow-tags");
+            }
+
+            addPushOptions(args);
+
+            args.add(gitFlowConfig.getOrigin());
+            args.addAll(refNames);
+            for (String branchName : atomicDeletes) {
+                args.add(":refs/heads/" + branchName);
+            }
+
+            executeGitCommand(args.toArray(new String[0]));
+
+            for (String refName : refNames) {
+                refSnapshotAddPushed(refName);
+            }
+            for (String branchName : atomicDeletes) {
+                refSnapshotRemove(remotePrefix + branchName);
+            }
+        }
+    }
+
+    /**
+     * Adds {@link #gitPushOptions} to the git <code>push</code> arguments.
+     * 
+     * @param args
+     *            Git push arguments.
+     * @throws CommandLineException
+     *             If options cannot be parsed.
+     */
+    private void addPushOptions(final List<String> args) throws CommandLineException {
+        if (StringUtils.isNotBlank(gitPushOptions)) {
+            try {
+                String[] opts = CommandLineUtils.translateCommandline(gitPushOptions);
+                for (String opt : opts) {
+                    args.add("--push-option=" + opt);
+                }
+            } catch (Exception e) {
+                throw new CommandLineException(e.getMessage(), e);
+            }
+        }
+    }
 
-        if (gpgSignTag) {
-            getLog().info("Creating GPG-signed '" + tagName + "' tag.");
+    protected void gitPushDelete(final String branchName) throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("push", branchName)) {
+            getLog().info("Deleting remote branch '" + branchName + "' from '" + gitFlowConfig.getOrigin() + "'.");
 
-            executeGitCommand("tag", "-a", "-s", tagName, "-m", message);
-        } else {
-            getLog().info("Creating '" + tagName + "' tag.");
+            CommandResult result = executeGitCommandExitCode("push", "--delete", gitFlowConfig.getOrigin(), branchName);
 
-            executeGitCommand("tag", "-a", tagName, "-m", message);
+            if (result.getExitCode() == SUCCESS_EXIT_CODE) {
+                refSnapshotRemove("refs/remotes/" + gitFlowConfig.getOrigin() + "/" + branchName);
+            } else {
+                getLog().warn(
+                        "There were some problems deleting remote branch '"
+                                + branchName + "' from '" + gitFlowConfig.getOrigin() + "'.");
+            }
         }
     }
 
     /**
-     * Executes git branch -d.
+     * Executes 'set' goal of versions-maven-plugin or 'set-version' of
+     * tycho-versions-plugin in case it is tycho build.
      * 
-     * @param branchName
-     *            Branch name to delete.
+     * @param version
+     *            New version to set.
      * @throws MojoFailureException
      *             If command line execution returns false code.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void gitBranchDelete(final String branchName) throws MojoFailureException, CommandLineException {
-        getLog().info("Deleting '" + branchName + "' branch.");
+    protected void mvnSetVersions(final String version) throws MojoFailureException, CommandLineException {
+        try (CommandProfiler.Span span = traceSpan("version update", version)) {
+            getLog().info("Updating version(s) to '" + version + "'.");
+            invalidateRootProject();
 
-        executeGitCommand("branch", "-d", branchName);
+            String newVersion = "-DnewVersion=" + version;
+
+            if (tychoBuild) {
+                String prop = null;
+                if (StringUtils.isNotBlank(versionProperty)) {
+                    prop = "-Dproperties=" + versionProperty;
+                    getLog().info("Updating property '" + versionProperty + "' to '" + version + "'.");
+                }
+
+                modifiedFiles = null;
+                executeMvnCommand(TYCHO_VERSIONS_PLUGIN + ":" + tychoVersionsPluginVersion + ":" + TYCHO_VERSIONS_PLUGIN_SET_GOAL, prop,
+                        newVersion, "-Dtycho.mode=maven");
+            } else if (updateVersionsInProcess && rewriteVersions(version)) {
+                return;
+            } else {
+                boolean runCommand = false;
+                List<String> args = new ArrayList<>();
+                args.add("-DgenerateBackupPoms=false");
+                args.add(newVersion);
+                if (!skipUpdateVersion) {
+                    runCommand = true;
+                    args.add(VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_GOAL);
+                    if (versionsForceUpdate) {
+                        args.add("-DgroupId=");
+                        args.add("-DartifactId=");
+                    }
+                }
+
+                if (StringUtils.isNotBlank(versionProperty)) {
+                    runCommand = true;
+                    getLog().info("Updating property '" + versionProperty + "' to '" + version + "'.");
+
+                    args.add(VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_PROPERTY_GOAL);
+                    args.add("-Dproperty=" + versionProperty);
+                }
+                if (runCommand) {
+                    modifiedFiles = null;
+                    executeMvnCommand(args.toArray(new String[0]));
+
+                    if (updateOutputTimestamp) {
+                        String timestamp = newOutputTimestamp(getCurrentProjectOutputTimestamp());
+                        if (timestamp != null) {
+                            getLog().info("Updating property '" + REPRODUCIBLE_BUILDS_PROPERTY + "' to '" + timestamp + "'.");
+
+                            executeMvnCommand(
+                                    VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_PROPERTY_GOAL,
+                                    "-DgenerateBackupPoms=false",
+                                    "-Dproperty=" + REPRODUCIBLE_BUILDS_PROPERTY, "-DnewVersion=" + timestamp);
+                        }
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Executes git branch -D.
+     * Creates new {@link #REPRODUCIBLE_BUILDS_PROPERTY} value in the same format
+     * as the current one.
      * 
-     * @param branchName
-     *            Branch name to delete.
-     * @throws MojoFailureException
-     *             If command line execution returns false code.
-     * @throws CommandLineException
-     *             If command line execution fails.
-     */
-    protected void gitBranchDeleteForce(final String branchName) throws MojoFailureException, CommandLineException {
-        getLog().info("Deleting (-D) '" + branchName + "' branch.");
-
-        executeGitCommand("branch", "-D", branchName);
+     * @param timestamp
+     *            Current value.
+     * @return New value or <code>null</code> if property isn't set.
+     */
+    private String newOutputTimestamp(final String timestamp) {
+        if (timestamp != null && timestamp.length() > 1) {
+            if (StringUtils.isNumeric(timestamp)) {
+                // int representing seconds since the epoch
+                return String.valueOf(System.currentTimeMillis() / 1000l);
+            } else {
+                // ISO-8601
+                DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+                df.setTimeZone(TimeZone.getTimeZone("UTC"));
+                return df.format(new Date());
+            }
+        }
+        return null;
     }
 
     /**
-     * Executes git fetch and checks if local branch exists. If local branch is
-     * present then compares it with the remote, if not then branch is checked out.
+     * Updates versions in pom.xml files of the reactor modules the same way as
+     * versions-maven-plugin <code>set</code> and <code>set-property</code>
+     * goals do.
      * 
-     * @param branchName
-     *            Branch name to check.
+     * @param version
+     *            New version to set.
+     * @return <code>true</code> if versions were updated, <code>false</code>
+     *         if versions-maven-plugin must be used.
      * @throws MojoFailureException
-     *             If command line execution returns false code or remote branch is
-     *             ahead of the local branch.
+     *             If project loading or file writing fails.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void gitFetchRemoteAndCompareCreate(final String branchName) throws MojoFailureException, CommandLineException {
-        final boolean remoteBranchExists = StringUtils.isNotBlank(gitFetchAndFindRemoteBranches(branchName, true));
-        if (gitCheckBranchExists(branchName)) {
-            if (remoteBranchExists) {
-                getLog().info(
-                        "Comparing local branch '" + branchName + "' with remote '" + gitFlowConfig.getOrigin() + "/" + branchName + "'.");
-                String revlistout = executeGitCommandReturn("rev-list", "--left-right", "--count",
-                        branchName + "..." + gitFlowConfig.getOrigin() + "/" + branchName);
+    private boolean rewriteVersions(final String version) throws MojoFailureException, CommandLineException {
+        final MavenProject currentProject = mavenSession.getCurrentProject();
+        final List<MavenProject> projects = reloadProjects(currentProject);
+
+        final Map<File, PomVersionRewriter> rewriters = new LinkedHashMap<>();
+        MavenProject rootProject = null;
+        for (MavenProject project : projects) {
+            try {
+                rewriters.put(project.getFile(), PomVersionRewriter.read(project.getFile()));
+            } catch (IOException e) {
+                getLog().debug("Cannot parse " + project.getFile() + ", using versions-maven-plugin.", e);
+                return false;
+            }
+            if (project.getFile().equals(currentProject.getFile())) {
+                rootProject = project;
+            }
+        }
+        if (rootProject == null) {
+            return false;
+        }
 
-                String[] counts = org.apache.commons.lang3.StringUtils.split(revlistout, '\t');
-                if (counts != null && counts.length > 1 && !"0".equals(org.apache.commons.lang3.StringUtils.deleteWhitespace(counts[1]))) {
-                    throw new MojoFailureException("Remote branch '" + gitFlowConfig.getOrigin() + "/" + branchName
-                            + "' is ahead of the local branch '" + branchName + "'. Execute git pull.");
+        // versions-maven-plugin parameters passed with argLine
+        boolean processAllModules = false;
+        if (StringUtils.isNotBlank(argLine)) {
+            try {
+                for (String arg : CommandLineUtils.translateCommandline(argLine)) {
+                    if ("-DprocessAllModules".equals(arg) || "-DprocessAllModules=true".equals(arg)) {
+                        processAllModules = true;
+                    } else if (VERSIONS_SET_ARG_PATTERN.matcher(arg).matches()) {
+                        getLog().debug("Argument '" + arg + "' is set, using versions-maven-plugin.");
+                        return false;
+                    }
                 }
+            } catch (Exception e) {
+                return false;
             }
-        } else {
-            getLog().info("Local branch '" + branchName + "' doesn't exist. Trying check it out from '" + gitFlowConfig.getOrigin() + "'.");
-            gitCreateAndCheckout(branchName, gitFlowConfig.getOrigin() + "/" + branchName);
         }
+
+        if (!skipUpdateVersion) {
+            // old versions of the modules which versions are changed
+            final Map<String, String> changed = new HashMap<>();
+            if (versionsForceUpdate) {
+                for (MavenProject project : projects) {
+                    changed.put(project.getGroupId() + ":" + project.getArtifactId(), project.getVersion());
+                }
+            } else {
+                changed.put(rootProject.getGroupId() + ":" + rootProject.getArtifactId(), rootProject.getVersion());
+                if (processAllModules) {
+                    for (MavenProject project : projects) {
+                        if (rootProject.getVersion().equals(project.getOriginalModel().getVersion())) {
+                            changed.put(project.getGroupId() + ":" + project.getArtifactId(), project.getVersion());
+                        }
+                    }
+                }
+                boolean added = true;
+                while (added) {
+                    added = false;
+                    for (MavenProject project : projects) {
+                        final String key = project.getGroupId() + ":" + project.getArtifactId();
+                        final Parent parent = project.getOriginalModel().getParent();
+                        if (changed.containsKey(key) || parent == null) {
+                            continue;
+                        }
+                        final String parentVersion = changed.get(parent.getGroupId() + ":" + parent.getArtifactId());
+                        final String ownVersion = project.getOriginalModel().getVersion();
+                        if (parentVersion != null && parentVersion.equals(parent.getVersion())
+                                && (ownVersion == null || ownVersion.equals(parentVersion))) {
+                            changed.put(key, project.getVersion());
+                            added = true;
+                        }
+                    }
+                }
+            }
+
+            for (MavenProject project : projects) {
+                final PomVersionRewriter rewriter = rewriters.get(project.getFile());
+                final String oldVersion = changed.get(project.getGroupId() + ":" + project.getArtifactId());
+                final String ownVersion = project.getOriginalModel().getVersion();
+                if (oldVersion != null && ownVersion != null) {
+                    if (!oldVersion.equals(rewriter.getValue("project/version"))) {
+                        // e.g. CI friendly ${revision}
+                        getLog().debug("Version of " + project.getFile() + " is an expression, using versions-maven-plugin.");
+                        return false;
+                    }
+                    rewriter.setValue("project/version", version);
+                }
+                final Parent parent = project.getOriginalModel().getParent();
+                if (parent != null) {
+                    final String parentVersion = changed.get(parent.getGroupId() + ":" + parent.getArtifactId());
+                    if (parentVersion != null && parentVersion.equals(rewriter.getValue("project/parent/version"))) {
+                        rewriter.setValue("project/parent/version", version);
+                    }
+                }
+                rewriter.setDependencyVersions(changed, version);
+            }
+        }
+
+        if (StringUtils.isNotBlank(versionProperty)) {
+            getLog().info("Updating property '" + versionProperty + "' to '" + version + "'.");
+
+            for (PomVersionRewriter rewriter : rewriters.values()) {
+                rewriter.setValue("project/properties/" + versionProperty, version);
+            }
+        }
+
+        if (!skipUpdateVersion || StringUtils.isNotBlank(versionProperty)) {
+            if (updateOutputTimestamp) {
+                final String timestamp = newOutputTimestamp(
+                        rootProject.getProperties().getProperty(REPRODUCIBLE_BUILDS_PROPERTY));
+                if (timestamp != null) {
+                    getLog().info("Updating property '" + REPRODUCIBLE_BUILDS_PROPERTY + "' to '" + timestamp + "'.");
+
+                    for (PomVersionRewriter rewriter : rewriters.values()) {
+                        rewriter.setValue("project/properties/" + REPRODUCIBLE_BUILDS_PROPERTY, timestamp);
+                    }
+                }
+            }
+
+            // write all files before replacing any, so a failure doesn't leave a half-updated reactor
+            final Map<File, File> written = new LinkedHashMap<>();
+            try {
+                for (Entry<File, PomVersionRewriter> entry : rewriters.entrySet()) {
+                    try {
+                        final File tmp = entry.getValue().writeTemp(entry.getKey());
+                        if (tmp != null) {
+                            written.put(entry.getKey(), tmp);
+                        }
+                    } catch (IOException e) {
+                        throw new MojoFailureException("Cannot write " + entry.getKey() + ".", e);
+                    }
+                }
+
+                final List<File> files = new ArrayList<>(written.keySet());
+                for (Iterator<Entry<File, File>> it = written.entrySet().iterator(); it.hasNext();) {
+                    final Entry<File, File> entry = it.next();
+                    try {
+                        PomVersionRewriter.replace(entry.getValue(), entry.getKey());
+                    } catch (IOException e) {
+                        throw new MojoFailureException("Cannot write " + entry.getKey() + ".", e);
+                    }
+                    it.remove();
+                }
+
+                for (File file : files) {
+                    if (modifiedFiles != null) {
+                        final String path = gitRelativePath(file);
+                        if (path != null) {
+                            modifiedFiles.add(path);
+                        } else {
+                            modifiedFiles = null;
+                        }
+                    }
+                }
+            } finally {
+                for (File tmp : written.values()) {
+                    if (!tmp.delete()) {
+                        getLog().debug("Cannot delete " + tmp + ".");
+                    }
+                }
+            }
+        }
+
+        return true;
     }
 
     /**
-     * Executes git fetch and git for-each-ref with <code>refname:short</code>
-     * format. Searches <code>refs/remotes/{gitFlowConfig#origin}/</code>.
+     * Executes mvn clean test, or mvn clean install if {@link #installProject}
+     * and {@link #installOnTest} are enabled.
      * 
-     * @param branchName
-     *            Branch name to find.
-     * @param firstMatch
-     *            Return first match.
-     * @return Branch names which matches
-     *         <code>refs/remotes/{gitFlowConfig#origin}/{branchName}*</code>.
      * @throws MojoFailureException
      *             If command line execution returns false code.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected String gitFetchAndFindRemoteBranches(final String branchName, final boolean firstMatch)
-            throws MojoFailureException, CommandLineException {
-        gitFetchRemote();
-        return gitFindBranches("refs/remotes/" + gitFlowConfig.getOrigin() + "/", branchName, firstMatch);
+    protected void mvnCleanTest() throws MojoFailureException, CommandLineException {
+        mvnTest(null);
     }
 
     /**
-     * Executes git fetch.
+     * Executes mvn clean test. If {@link #testAffectedModulesOnly} is enabled
+     * tests only the modules changed relative to the target branch and the
+     * modules depending on them.
      * 
-     * @return <code>true</code> if git fetch returned success exit code,
-     *         <code>false</code> otherwise.
+     * @param targetBranchName
+     *            Name of the branch into which the current branch will be
+     *            merged.
      * @throws MojoFailureException
-     *             Shouldn't happen, actually.
+     *             If command line execution returns false code.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    private boolean gitFetchRemote() throws MojoFailureException, CommandLineException {
-        getLog().info("Fetching remote from '" + gitFlowConfig.getOrigin() + "'.");
-
-        CommandResult result = executeGitCommandExitCode("fetch", "--quiet", gitFlowConfig.getOrigin());
-
-        boolean success = result.getExitCode() == SUCCESS_EXIT_CODE;
-        if (!success) {
-            getLog().warn(
-                    "There were some problems fetching from '"
-                            + gitFlowConfig.getOrigin()
-                            + "'. You can turn off remote fetching by setting the 'fetchRemote' parameter to false.");
+    protected void mvnCleanTest(final String targetBranchName) throws MojoFailureException, CommandLineException {
+        List<String> projectList = null;
+        if (testAffectedModulesOnly && StringUtils.isNotBlank(targetBranchName)) {
+            projectList = gitFindAffectedModules(targetBranchName);
         }
-
-        return success;
+        mvnTest(projectList);
     }
 
     /**
-     * Executes git push, optionally with the <code>--follow-tags</code> argument.
+     * Finds modules changed relative to the target branch.
      * 
-     * @param branchName
-     *            Branch name to push.
-     * @param pushTags
-     *            If <code>true</code> adds <code>--follow-tags</code> argument to
-     *            the git <code>push</code> command.
+     * @param targetBranchName
+     *            Name of the target branch.
+     * @return Changed modules as <code>groupId:artifactId</code> or
+     *         <code>null</code> if the whole project must be tested.
      * @throws MojoFailureException
-     *             If command line execution returns false code.
+     *             If project loading fails.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void gitPush(final String branchName, boolean pushTags) throws MojoFailureException, CommandLineException {
-        getLog().info("Pushing '" + branchName + "' branch to '" + gitFlowConfig.getOrigin() + "'.");
-
-        List<String> args = new ArrayList<>();
-        args.add("push");
-        args.add("--quiet");
-        args.add("-u");
-
-        if (pushTags) {
-            args.add("--follow-tags");
+    private List<String> gitFindAffectedModules(final String targetBranchName)
+            throws MojoFailureException, CommandLineException {
+        final CommandResult diff = executeGitCommandExitCode("diff", "--name-only", "-z",
+                targetBranchName + "...HEAD");
+        final CommandResult toplevel = executeGitCommandExitCode("rev-parse", "--show-toplevel");
+        if (diff.getExitCode() != SUCCESS_EXIT_CODE || toplevel.getExitCode() != SUCCESS_EXIT_CODE) {
+            getLog().warn("Cannot find changes relative to '" + targetBranchName + "', testing all modules.");
+            return null;
         }
 
-        if (StringUtils.isNotBlank(gitPushOptions)) {
-            try {
-                String[] opts = CommandLineUtils.translateCommandline(gitPushOptions);
-                for (String opt : opts) {
-                    args.add("--push-option=" + opt);
+        try {
+            // deepest modules first
+            final List<MavenProject> projects = new ArrayList<>(reloadProjects(mavenSession.getCurrentProject()));
+            final Map<MavenProject, String> basedirs = new HashMap<>();
+            for (MavenProject project : projects) {
+                basedirs.put(project, project.getBasedir().getCanonicalPath() + File.separator);
+            }
+            projects.sort((a, b) -> Integer.compare(basedirs.get(b).length(), basedirs.get(a).length()));
+
+            final File root = new File(StringUtils.strip(toplevel.getOut()));
+            final Set<String> modules = new LinkedHashSet<>();
+            for (String path : diff.getOut().split("\0")) {
+                path = StringUtils.strip(path);
+                if (path.isEmpty()) {
+                    continue;
+                }
+                final String file = new File(root, path).getCanonicalPath();
+                for (MavenProject project : projects) {
+                    if (file.startsWith(basedirs.get(project))) {
+                        if (project.isExecutionRoot()) {
+                            getLog().info("Root module is changed, testing all modules.");
+                            return null;
+                        }
+                        modules.add(project.getGroupId() + ":" + project.getArtifactId());
+                        break;
+                    }
                 }
-            } catch (Exception e) {
-                throw new CommandLineException(e.getMessage(), e);
             }
-        }
-
-        args.add(gitFlowConfig.getOrigin());
-        args.add(branchName);
-
-        executeGitCommand(args.toArray(new String[0]));
-    }
-
-    protected void gitPushDelete(final String branchName) throws MojoFailureException, CommandLineException {
-        getLog().info("Deleting remote branch '" + branchName + "' from '" + gitFlowConfig.getOrigin() + "'.");
 
-        CommandResult result = executeGitCommandExitCode("push", "--delete", gitFlowConfig.getOrigin(), branchName);
-
-        if (result.getExitCode() != SUCCESS_EXIT_CODE) {
-            getLog().warn(
-                    "There were some problems deleting remote branch '"
-                            + branchName + "' from '" + gitFlowConfig.getOrigin() + "'.");
+            if (modules.isEmpty()) {
+                getLog().info("No changed modules found, testing all modules.");
+                return null;
+            }
+            return new ArrayList<>(modules);
+        } catch (IOException e) {
+            getLog().warn("Cannot find changed modules, testing all modules.", e);
+            return null;
         }
     }
 
     /**
-     * Executes 'set' goal of versions-maven-plugin or 'set-version' of
-     * tycho-versions-plugin in case it is tycho build.
+     * Executes mvn clean test.
      * 
-     * @param version
-     *            New version to set.
+     * @param projectList
+     *            Modules to test together with the modules they depend on and
+     *            the modules depending on them, <code>null</code> to test the
+     *            whole project.
      * @throws MojoFailureException
      *             If command line execution returns false code.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void mvnSetVersions(final String version) throws MojoFailureException, CommandLineException {
-        getLog().info("Updating version(s) to '" + version + "'.");
-
-        String newVersion = "-DnewVersion=" + version;
-
-        if (tychoBuild) {
-            String prop = null;
-            if (StringUtils.isNotBlank(versionProperty)) {
-                prop = "-Dproperties=" + versionProperty;
-                getLog().info("Updating property '" + versionProperty + "' to '" + version + "'.");
+    private void mvnTest(final List<String> projectList) throws MojoFailureException, CommandLineException {
+        // installation of some modules cannot replace installation of the project
+        final boolean install = installProject && installOnTest && projectList == null;
+        if (install) {
+            getLog().info((cleanProject ? "Cleaning, testing" : "Testing") + " and installing the project.");
+        } else {
+            getLog().info(cleanProject ? "Cleaning and testing the project." : "Testing the project.");
+        }
+        try (CommandProfiler.Span span = traceSpan("test", null)) {
+            final String goal;
+            if (install) {
+                goal = "install";
+            } else if (tychoBuild) {
+                goal = "verify";
+            } else {
+                goal = "test";
+            }
+            final List<String> goals = mavenGoals(goal);
+            if (projectList != null) {
+                getLog().info("Testing changed modules " + projectList + " and modules depending on them.");
+                goals.add("-pl");
+                goals.add(StringUtils.join(projectList.iterator(), ","));
+                // build upstream modules, otherwise stale or missing SNAPSHOTs are used
+                goals.add("-am");
+                goals.add("-amd");
             }
 
-            executeMvnCommand(TYCHO_VERSIONS_PLUGIN + ":" + tychoVersionsPluginVersion + ":" + TYCHO_VERSIONS_PLUGIN_SET_GOAL, prop,
-                    newVersion, "-Dtycho.mode=maven");
-        } else {
-            boolean runCommand = false;
-            List<String> args = new ArrayList<>();
-            args.add("-DgenerateBackupPoms=false");
-            args.add(newVersion);
-            if (!skipUpdateVersion) {
-                runCommand = true;
-                args.add(VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_GOAL);
-                if (versionsForceUpdate) {
-                    args.add("-DgroupId=");
-                    args.add("-DartifactId=");
-                }
+            final String tree = verificationCache ? gitWriteTree() : null;
+            final String verification = StringUtils.join(goals.iterator(), " ")
+                    + (StringUtils.isBlank(argLine) ? "" : " " + argLine.trim());
+            if (tree != null && gitIsVerified(tree, verification)) {
+                getLog().info("Tree '" + tree + "' was already tested with '" + verification + "', skipping.");
+                return;
             }
 
-            if (StringUtils.isNotBlank(versionProperty)) {
-                runCommand = true;
-                getLog().info("Updating property '" + versionProperty + "' to '" + version + "'.");
+            executeMvnCommand(mavenThreads(goals));
+            projectInstalled = install;
 
-                args.add(VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_PROPERTY_GOAL);
-                args.add("-Dproperty=" + versionProperty);
+            if (tree != null) {
+                gitMarkVerified(tree, verification);
             }
-            if (runCommand) {
-                executeMvnCommand(args.toArray(new String[0]));
+        }
+    }
 
-                if (updateOutputTimestamp) {
-                    String timestamp = getCurrentProjectOutputTimestamp();
-                    if (timestamp != null && timestamp.length() > 1) {
-                        if (StringUtils.isNumeric(timestamp)) {
-                            // int representing seconds since the epoch
-                            timestamp = String.valueOf(System.currentTimeMillis() / 1000l);
-                        } else {
-                            // ISO-8601
-                            DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                            df.setTimeZone(TimeZone.getTimeZone("UTC"));
-                            timestamp = df.format(new Date());
-                        }
+    /**
+     * Creates Maven goals with the clean goal if {@link #cleanProject} is
+     * enabled.
+     * 
+     * @param goal
+     *            The goal to execute.
+     * @return Maven goals.
+     */
+    private List<String> mavenGoals(final String goal) {
+        final List<String> goals = new ArrayList<>();
+        if (cleanProject) {
+            goals.add("clean");
+        }
+        goals.add(goal);
+        return goals;
+    }
+
+    /**
+     * Adds {@link #mvnThreads} option to the Maven goals.
+     * 
+     * @param goals
+     *            Maven goals.
+     * @return Maven command line arguments.
+     */
+    private String[] mavenThreads(final List<String> goals) {
+        final List<String> args = new ArrayList<>(goals);
+        if (StringUtils.isNotBlank(mvnThreads)) {
+            args.add("-T");
+            args.add(mvnThreads.trim());
+        }
+        return args.toArray(new String[0]);
+    }
 
-                        getLog().info("Updating property '" + REPRODUCIBLE_BUILDS_PROPERTY + "' to '" + timestamp + "'.");
+    /**
+     * Executes git write-tree.
+     * 
+     * @return Tree hash of the index or <code>null</code> if it cannot be
+     *         written, e.g. index has unmerged entries.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private String gitWriteTree() throws MojoFailureException, CommandLineException {
+        final CommandResult result = executeGitCommandExitCode("write-tree");
+        if (result.getExitCode() != SUCCESS_EXIT_CODE) {
+            return null;
+        }
+        return StringUtils.strip(result.getOut());
+    }
 
-                        executeMvnCommand(
-                                VERSIONS_MAVEN_PLUGIN + ":" + versionsMavenPluginVersion + ":" + VERSIONS_MAVEN_PLUGIN_SET_PROPERTY_GOAL,
-                                "-DgenerateBackupPoms=false",
-                                "-Dproperty=" + REPRODUCIBLE_BUILDS_PROPERTY, "-DnewVersion=" + timestamp);
-                    }
-                }
+    /**
+     * Checks if the tree was already tested with the given goals.
+     * 
+     * @param tree
+     *            Tree hash.
+     * @param verification
+     *            Maven goals and arguments.
+     * @return <code>true</code> if the tree is recorded as verified.
+     * @throws MojoFailureException
+     *             Shouldn't happen, actually.
+     * @throws CommandLineException
+     *             If command line execution fails.
+     */
+    private boolean gitIsVerified(final String tree, final String verification)
+            throws MojoFailureException, CommandLineException {
+        final CommandResult result = executeGitCommandExitCode("notes", "--ref=" + VERIFIED_NOTES_REF, "show", tree);
+        if (result.getExitCode() != SUCCESS_EXIT_CODE) {
+            return false;
+        }
+        for (String line : result.getOut().split("\\r?\\n")) {
+            if (verification.equals(line.trim())) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
-     * Executes mvn clean test.
+     * Records the tree as tested with the given goals.
      * 
+     * @param tree
+     *            Tree hash.
+     * @param verification
+     *            Maven goals and arguments.
      * @throws MojoFailureException
-     *             If command line execution returns false code.
+     *             Shouldn't happen, actually.
      * @throws CommandLineException
      *             If command line execution fails.
      */
-    protected void mvnCleanTest() throws MojoFailureException, CommandLineException {
-        getLog().info("Cleaning and testing the project.");
-        if (tychoBuild) {
-            executeMvnCommand("clean", "verify");
-        } else {
-            executeMvnCommand("clean", "test");
+    private void gitMarkVerified(final String tree, final String verification)
+            throws MojoFailureException, CommandLineException {
+        final CommandResult result = executeGitCommandExitCode("notes", "--ref=" + VERIFIED_NOTES_REF, "append", "-m",
+                verification, tree);
+        if (result.getExitCode() != SUCCESS_EXIT_CODE) {
+            getLog().warn("Cannot record tested tree '" + tree + "' in " + VERIFIED_NOTES_REF + ".");
         }
     }
 
@@ -1237,9 +3624,15 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line execution fails.
      */
     protected void mvnCleanInstall() throws MojoFailureException, CommandLineException {
-        getLog().info("Cleaning and installing the project.");
+        if (projectInstalled) {
+            getLog().info("The project was already installed when it was tested, skipping installation.");
+            return;
+        }
+        try (CommandProfiler.Span span = traceSpan("install", null)) {
+            getLog().info(cleanProject ? "Cleaning and installing the project." : "Installing the project.");
 
-        executeMvnCommand("clean", "install");
+            executeMvnCommand(mavenThreads(mavenGoals("install")));
+        }
     }
 
     /**
@@ -1251,9 +3644,18 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
      *             If command line parsing or execution fails.
      */
     protected void mvnRun(final String goals) throws Exception {
-        getLog().info("Running Maven goals: " + goals);
+        try (CommandProfiler.Span span = traceSpan("maven goals", goals)) {
+            getLog().info("Running Maven goals: " + goals);
+
+            executeMvnCommand(CommandLineUtils.translateCommandline(goals));
+            invalidateRootProject();
 
-        executeMvnCommand(CommandLineUtils.translateCommandline(goals));
+            // custom goals might change any file
+            modifiedFiles = null;
+
+            // custom goals might change Git references
+            invalidateRefSnapshot();
+        }
     }
 
     /**
@@ -1318,6 +3720,30 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         executeCommand(cmdMvn, true, argLine, args);
     }
 
+    /**
+     * Opens temporary file for the Maven commands output and writes the
+     * command line into it.
+     * 
+     * @param cmd
+     *            Maven command line.
+     * @return Writer appending to the file or <code>null</code> if file cannot
+     *         be opened.
+     */
+    private Writer openMavenOutputSpool(final Commandline cmd) {
+        try {
+            if (mavenOutputSpoolFile == null) {
+                mavenOutputSpoolFile = File.createTempFile("gitflow-maven-output", ".log");
+            }
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(mavenOutputSpoolFile, true), StandardCharsets.UTF_8));
+            writer.write("> " + cmd.getExecutable() + " " + StringUtils.join(cmd.getArguments(), " ") + LS);
+            return writer;
+        } catch (IOException e) {
+            getLog().warn("Cannot write Maven commands output into a file.", e);
+            return null;
+        }
+    }
+
     /**
      * Executes command line.
      * 
@@ -1348,20 +3774,65 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
                             + (argStr == null ? "" : " " + argStr));
         }
 
-        cmd.clearArgs();
+        // new command line for each execution, so commands can be executed concurrently
+        final Commandline command = new Commandline();
+        command.setExecutable(cmd.getLiteralExecutable());
         String[] nonNullArgs = Arrays.stream(args).filter(Objects::nonNull).toArray(String[]::new);
-        cmd.addArguments(nonNullArgs);
+        command.addArguments(nonNullArgs);
 
         if (StringUtils.isNotBlank(argStr)) {
-            cmd.createArg().setLine(argStr);
+            command.createArg().setLine(argStr);
         }
 
-        final StringBufferStreamConsumer out = new StringBufferStreamConsumer(verbose);
+        Writer spool = null;
+        final StringBufferStreamConsumer out;
+        final StringBufferStreamConsumer err;
+        if (cmd == cmdMvn) {
+            if (spoolMavenOutput) {
+                spool = openMavenOutputSpool(command);
+            }
+            // maven output can be huge
+            out = new StringBufferStreamConsumer(getLog(), verbose, mavenOutputTailLines, mavenOutputTailSize, spool);
+            err = new StringBufferStreamConsumer(getLog(), false, mavenOutputTailLines, mavenOutputTailSize, spool);
+        } else {
+            out = new StringBufferStreamConsumer(getLog(), verbose);
+            err = new StringBufferStreamConsumer(getLog(), false);
+        }
 
-        final CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+        final CommandProfiler profiler = getCommandProfiler();
+        if (profiler != null) {
+            out.setCountOutputSize(true);
+            err.setCountOutputSize(true);
+        }
 
         // execute
-        final int exitCode = CommandLineUtils.executeCommandLine(cmd, out, err);
+        final long startNanos = System.nanoTime();
+        long spawnNanos = 0;
+        final int exitCode;
+        try {
+            CommandLineCallable callable = CommandLineUtils.executeCommandLineAsCallable(command, null, out, err, 0);
+            spawnNanos = System.nanoTime() - startNanos;
+            exitCode = callable.call();
+        } finally {
+            if (spool != null) {
+                try {
+                    spool.close();
+                } catch (IOException e) {
+                    getLog().warn("Cannot write Maven commands output into " + mavenOutputSpoolFile + ".", e);
+                }
+            }
+        }
+        final IOException spoolException = out.getSpoolException() != null ? out.getSpoolException()
+                : err.getSpoolException();
+        if (spoolException != null) {
+            getLog().warn("Cannot write Maven commands output into " + mavenOutputSpoolFile + ".", spoolException);
+        }
+
+        if (profiler != null) {
+            profiler.record(CommandProfiler.commandKey(cmd == cmdGit ? "git" : "mvn", cmd == cmdGit, nonNullArgs), startNanos,
+                    spawnNanos, System.nanoTime() - startNanos, exitCode, out.getOutputSize(),
+                    err.getOutputSize());
+        }
 
         String errorStr = err.getOutput();
         String outStr = out.getOutput();
@@ -1370,7 +3841,7 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
             // not all commands print errors to error stream
             errorStr += LS + outStr;
 
-            throw new MojoFailureException("Failed cmd ["+cmd.getExecutable()+"] with args [" + Arrays.toString(cmd.getArguments()) + "], bad exit code [" + exitCode +"]. Out: [" + errorStr+ "]");
+            throw new MojoFailureException("Failed cmd ["+cmd.getExecutable()+"] with args [" + Arrays.toString(command.getArguments()) + "], bad exit code [" + exitCode +"]. Out: [" + errorStr+ "]");
         }
 
         if (verbose && StringUtils.isNotBlank(errorStr)) {
@@ -1380,6 +3851,22 @@ public abstract class AbstractGitFlowMojo extends AbstractMojo {
         return new CommandResult(exitCode, outStr, errorStr);
     }
 
+    /**
+     * Check which can be executed concurrently with other checks.
+     */
+    @FunctionalInterface
+    protected interface PreflightCheck {
+        /**
+         * Runs the check.
+         * 
+         * @throws MojoFailureException
+         *             If check fails.
+         * @throws CommandLineException
+         *             If command line execution fails.
+         */
+        void run() throws MojoFailureException, CommandLineException;
+    }
+
     private static class CommandResult {
         private final int exitCode;
         private final String out;
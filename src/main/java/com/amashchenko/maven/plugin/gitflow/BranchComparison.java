@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+/**
+ * Result of the comparison of the local branch with the remote one.
+ *
+ */
+public class BranchComparison {
+    private final String branchName;
+    private final boolean localExists;
+    private final boolean remoteExists;
+    private final int ahead;
+    private final int behind;
+
+    /**
+     * Creates comparison result.
+     *
+     * @param branchName
+     *            Branch name.
+     * @param localExists
+     *            Whether local branch exists.
+     * @param remoteExists
+     *            Whether remote branch exists.
+     * @param ahead
+     *            Number of local commits which are not in the remote branch.
+     * @param behind
+     *            Number of remote commits which are not in the local branch.
+     */
+    public BranchComparison(final String branchName, final boolean localExists, final boolean remoteExists,
+            final int ahead, final int behind) {
+        this.branchName = branchName;
+        this.localExists = localExists;
+        this.remoteExists = remoteExists;
+        this.ahead = ahead;
+        this.behind = behind;
+    }
+
+    /**
+     * Parses <code>%(upstream:track,nobracket)</code> output of the git
+     * <code>for-each-ref</code>, e.g. <code>ahead 1, behind 2</code>.
+     *
+     * @param track
+     *            Track output.
+     * @return Array with ahead and behind counts or <code>null</code> if
+     *         output cannot be parsed or upstream is gone.
+     */
+    public static int[] parseTrack(final String track) {
+        final int[] counts = new int[2];
+        if (track == null || track.trim().isEmpty()) {
+            return counts;
+        }
+        for (String part : track.split(",")) {
+            final String[] kv = part.trim().split(" ");
+            if (kv.length != 2) {
+                return null;
+            }
+            try {
+                if ("ahead".equals(kv[0])) {
+                    counts[0] = Integer.parseInt(kv[1]);
+                } else if ("behind".equals(kv[0])) {
+                    counts[1] = Integer.parseInt(kv[1]);
+                } else {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Parses two whitespace separated counts, i.e. output of the
+     * <code>%(ahead-behind:...)</code> atom of the git <code>for-each-ref</code>
+     * or of the git <code>rev-list --left-right --count</code>.
+     *
+     * @param counts
+     *            Counts output.
+     * @return Array with left (ahead) and right (behind) counts or
+     *         <code>null</code> if output cannot be parsed.
+     */
+    public static int[] parseCounts(final String counts) {
+        if (counts == null) {
+            return null;
+        }
+        final String[] parts = counts.trim().split("\\s+");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the branchName
+     */
+    public String getBranchName() {
+        return branchName;
+    }
+
+    /**
+     * @return the localExists
+     */
+    public boolean isLocalExists() {
+        return localExists;
+    }
+
+    /**
+     * @return the remoteExists
+     */
+    public boolean isRemoteExists() {
+        return remoteExists;
+    }
+
+    /**
+     * @return the ahead
+     */
+    public int getAhead() {
+        return ahead;
+    }
+
+    /**
+     * @return the behind
+     */
+    public int getBehind() {
+        return behind;
+    }
+}
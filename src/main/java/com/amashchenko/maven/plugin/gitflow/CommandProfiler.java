@@ -0,0 +1,408 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects timings of the executed commands and groups them by command, e.g.
+ * <code>git fetch</code> or <code>mvn versions:set</code>. Also collects spans
+ * of the workflow phases which can be exported together with the commands in
+ * Chrome trace event format.
+ *
+ */
+public class CommandProfiler {
+    /** Options which take value from the next argument, e.g. <code>-T 4</code>. */
+    private static final Set<String> OPTIONS_WITH_VALUE = new HashSet<>(Arrays.asList("-T", "--threads", "-pl",
+            "--projects", "-rf", "--resume-from", "-f", "--file", "-s", "--settings", "-gs", "--global-settings",
+            "-t", "--toolchains", "-gt", "--global-toolchains", "-P", "--activate-profiles", "-D", "--define", "-l",
+            "--log-file", "-b", "--builder"));
+
+    private final long startNanos = System.nanoTime();
+    private final List<Invocation> invocations = new ArrayList<>();
+    private final List<Span> spans = new ArrayList<>();
+    /** Names of the open spans of the thread, innermost first. */
+    private final ThreadLocal<Deque<String>> openSpans = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Creates grouping key of the command, i.e. Git subcommand or Maven goals.
+     *
+     * @param tool
+     *            Tool name, e.g. <code>git</code>.
+     * @param subcommandOnly
+     *            Whether to use only the first argument which isn't an option
+     *            (e.g. Git subcommand), otherwise all such arguments are used
+     *            (e.g. Maven goals).
+     * @param args
+     *            Command arguments. Options and their values are skipped.
+     * @return Command key, e.g. <code>git rev-list</code> or
+     *         <code>mvn clean install</code>.
+     */
+    public static String commandKey(final String tool, final boolean subcommandOnly, final String... args) {
+        final StringBuilder key = new StringBuilder(tool);
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (arg == null || arg.startsWith("-")) {
+                if (OPTIONS_WITH_VALUE.contains(arg)) {
+                    // skip option value
+                    i++;
+                }
+                continue;
+            }
+            key.append(' ');
+            final String[] parts = arg.split(":");
+            if (parts.length >= 3) {
+                // groupId:artifactId[:version]:goal
+                key.append(parts[1].replaceFirst("-maven-plugin$", "").replaceFirst("-plugin$", ""))
+                        .append(':').append(parts[parts.length - 1]);
+            } else {
+                key.append(arg);
+            }
+            if (subcommandOnly) {
+                break;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Records command invocation.
+     *
+     * @param key
+     *            Command key.
+     * @param startNanos
+     *            {@link System#nanoTime()} when command was started.
+     * @param spawnNanos
+     *            Time spent starting the process.
+     * @param wallNanos
+     *            Total time of the command.
+     * @param exitCode
+     *            Exit code.
+     * @param outSize
+     *            Size of the standard output in bytes.
+     * @param errSize
+     *            Size of the error output in bytes.
+     */
+    public synchronized void record(final String key, final long startNanos, final long spawnNanos,
+            final long wallNanos, final int exitCode, final long outSize, final long errSize) {
+        invocations.add(new Invocation(key, Thread.currentThread().getId(), startNanos, spawnNanos, wallNanos,
+                exitCode, outSize, errSize));
+    }
+
+    /**
+     * Starts span of the workflow phase in the current thread. Span with the
+     * same name as the innermost open span of the thread isn't recorded, so
+     * nested helpers of the same phase produce one span.
+     *
+     * @param name
+     *            Phase name, e.g. <code>merge</code>.
+     * @param detail
+     *            Optional detail, e.g. branch name.
+     * @return Started span which must be closed at the end of the phase.
+     */
+    public Span span(final String name, final String detail) {
+        final Deque<String> open = openSpans.get();
+        if (name.equals(open.peek())) {
+            return Span.NONE;
+        }
+        open.push(name);
+        return new Span(this, name, detail);
+    }
+
+    private synchronized void finish(final Span span) {
+        openSpans.get().pop();
+        spans.add(span);
+    }
+
+    /**
+     * @return Recorded invocations in the order they were recorded.
+     */
+    public synchronized List<Invocation> getInvocations() {
+        return new ArrayList<>(invocations);
+    }
+
+    /**
+     * Creates summary of the commands ranked by the total time.
+     *
+     * @return Summary lines.
+     */
+    public synchronized List<String> summary() {
+        final List<Group> groups = groups();
+        long total = 0;
+        for (Group group : groups) {
+            total += group.wallNanos;
+        }
+
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Commands took %d ms of %d ms:", millis(total),
+                millis(System.nanoTime() - startNanos)));
+        for (Group group : groups) {
+            lines.add(String.format(Locale.ROOT, "%8d ms %5.1f%% %4dx %-40s spawn %d ms, out %d bytes, err %d bytes%s",
+                    millis(group.wallNanos), total > 0 ? 100.0 * group.wallNanos / total : 0.0, group.count,
+                    group.key, millis(group.spawnNanos), group.outSize, group.errSize,
+                    group.failures > 0 ? ", failed " + group.failures + "x" : ""));
+        }
+        return lines;
+    }
+
+    /**
+     * Writes profile in JSON format.
+     *
+     * @param file
+     *            File to write into.
+     * @throws IOException
+     *             If file cannot be written.
+     */
+    public synchronized void writeJson(final File file) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"totalMillis\": ").append(millis(System.nanoTime() - startNanos));
+        sb.append(",\n  \"commands\": [");
+        String sep = "\n";
+        for (Group group : groups()) {
+            sb.append(sep).append("    {\"command\": ").append(quote(group.key))
+                    .append(", \"count\": ").append(group.count)
+                    .append(", \"wallMillis\": ").append(millis(group.wallNanos))
+                    .append(", \"maxWallMillis\": ").append(millis(group.maxWallNanos))
+                    .append(", \"spawnMillis\": ").append(millis(group.spawnNanos))
+                    .append(", \"outBytes\": ").append(group.outSize)
+                    .append(", \"errBytes\": ").append(group.errSize)
+                    .append(", \"failures\": ").append(group.failures).append('}');
+            sep = ",\n";
+        }
+        sb.append("\n  ],\n  \"invocations\": [");
+        sep = "\n";
+        for (Invocation invocation : invocations) {
+            sb.append(sep).append("    {\"command\": ").append(quote(invocation.key))
+                    .append(", \"startMillis\": ").append(millis(invocation.startNanos - startNanos))
+                    .append(", \"wallMillis\": ").append(millis(invocation.wallNanos))
+                    .append(", \"spawnMillis\": ").append(millis(invocation.spawnNanos))
+                    .append(", \"exitCode\": ").append(invocation.exitCode)
+                    .append(", \"outBytes\": ").append(invocation.outSize)
+                    .append(", \"errBytes\": ").append(invocation.errSize).append('}');
+            sep = ",\n";
+        }
+        sb.append("\n  ]\n}\n");
+
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes spans and commands in Chrome trace event format which can be
+     * opened in <code>chrome://tracing</code> or Perfetto UI.
+     *
+     * @param file
+     *            File to write into.
+     * @param processName
+     *            Name of the traced process, e.g. executed goal.
+     * @throws IOException
+     *             If file cannot be written.
+     */
+    public synchronized void writeTrace(final File file, final String processName) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+        sb.append("  {\"name\": \"process_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": 0, \"args\": {\"name\": ")
+                .append(quote(processName)).append("}}");
+        for (Span span : spans) {
+            sb.append(",\n");
+            appendEvent(sb, span.name, "phase", span.threadId, span.startNanos, span.endNanos - span.startNanos);
+            if (span.detail != null) {
+                sb.append(", \"args\": {\"detail\": ").append(quote(span.detail)).append('}');
+            }
+            sb.append('}');
+        }
+        for (Invocation invocation : invocations) {
+            sb.append(",\n");
+            final int space = invocation.key.indexOf(' ');
+            appendEvent(sb, invocation.key, space > 0 ? invocation.key.substring(0, space) : invocation.key,
+                    invocation.threadId, invocation.startNanos, invocation.wallNanos);
+            sb.append(", \"args\": {\"exitCode\": ").append(invocation.exitCode)
+                    .append(", \"spawnMillis\": ").append(millis(invocation.spawnNanos))
+                    .append(", \"outBytes\": ").append(invocation.outSize)
+                    .append(", \"errBytes\": ").append(invocation.errSize).append("}}");
+        }
+        sb.append("\n]}\n");
+
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendEvent(final StringBuilder sb, final String name, final String category, final long threadId,
+            final long eventStartNanos, final long durationNanos) {
+        sb.append("  {\"name\": ").append(quote(name))
+                .append(", \"cat\": ").append(quote(category))
+                .append(", \"ph\": \"X\", \"pid\": 1, \"tid\": ").append(threadId)
+                .append(", \"ts\": ").append(TimeUnit.NANOSECONDS.toMicros(eventStartNanos - startNanos))
+                .append(", \"dur\": ").append(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    private List<Group> groups() {
+        final Map<String, Group> groups = new LinkedHashMap<>();
+        for (Invocation invocation : invocations) {
+            Group group = groups.get(invocation.key);
+            if (group == null) {
+                group = new Group(invocation.key);
+                groups.put(invocation.key, group);
+            }
+            group.count++;
+            group.wallNanos += invocation.wallNanos;
+            group.maxWallNanos = Math.max(group.maxWallNanos, invocation.wallNanos);
+            group.spawnNanos += invocation.spawnNanos;
+            group.outSize += invocation.outSize;
+            group.errSize += invocation.errSize;
+            if (invocation.exitCode != 0) {
+                group.failures++;
+            }
+        }
+        final List<Group> result = new ArrayList<>(groups.values());
+        Collections.sort(result, (a, b) -> Long.compare(b.wallNanos, a.wallNanos));
+        return result;
+    }
+
+    static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    static String quote(final String str) {
+        final StringBuilder sb = new StringBuilder("\"");
+        for (char c : str.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Single command invocation.
+     */
+    public static class Invocation {
+        private final String key;
+        private final long threadId;
+        private final long startNanos;
+        private final long spawnNanos;
+        private final long wallNanos;
+        private final int exitCode;
+        private final long outSize;
+        private final long errSize;
+
+        private Invocation(final String key, final long threadId, final long startNanos, final long spawnNanos,
+                final long wallNanos, final int exitCode, final long outSize, final long errSize) {
+            this.key = key;
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.spawnNanos = spawnNanos;
+            this.wallNanos = wallNanos;
+            this.exitCode = exitCode;
+            this.outSize = outSize;
+            this.errSize = errSize;
+        }
+
+        /**
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the startNanos
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /**
+         * @return the wallNanos
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * @return the exitCode
+         */
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+
+    /**
+     * Span of the workflow phase.
+     */
+    public static class Span implements AutoCloseable {
+        /** Span which isn't recorded. */
+        public static final Span NONE = new Span(null, null, null);
+
+        private final CommandProfiler profiler;
+        private final String name;
+        private final String detail;
+        private final long threadId = Thread.currentThread().getId();
+        private final long startNanos = System.nanoTime();
+        private long endNanos;
+
+        private Span(final CommandProfiler profiler, final String name, final String detail) {
+            this.profiler = profiler;
+            this.name = name;
+            this.detail = detail;
+        }
+
+        /**
+         * Ends the span.
+         */
+        @Override
+        public void close() {
+            if (profiler != null && endNanos == 0) {
+                endNanos = System.nanoTime();
+                profiler.finish(this);
+            }
+        }
+    }
+
+    private static class Group {
+        private final String key;
+        private int count;
+        private long wallNanos;
+        private long maxWallNanos;
+        private long spawnNanos;
+        private long outSize;
+        private long errSize;
+        private int failures;
+
+        private Group(final String key) {
+            this.key = key;
+        }
+    }
+}
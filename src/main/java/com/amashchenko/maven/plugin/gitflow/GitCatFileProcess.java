@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.util.Os;
+
+/**
+ * Long-lived <code>git cat-file --batch-check</code> process. Resolves
+ * revisions (references, object names, <code>rev^{commit}</code> etc.)
+ * without starting a new Git process for every query. Blobs are read with a
+ * second <code>git cat-file --batch</code> process, started on the first read.
+ *
+ */
+public class GitCatFileProcess implements Closeable {
+    private final String gitExecutable;
+    private final Batch check;
+    private Batch contents;
+
+    private GitCatFileProcess(final String gitExecutable, final Batch check) {
+        this.gitExecutable = gitExecutable;
+        this.check = check;
+    }
+
+    /**
+     * Starts new <code>git cat-file --batch-check</code> process in the
+     * current directory.
+     *
+     * @param gitExecutable
+     *            Git executable.
+     * @return Started process.
+     * @throws IOException
+     *             If process cannot be started.
+     */
+    public static GitCatFileProcess start(final String gitExecutable) throws IOException {
+        return new GitCatFileProcess(gitExecutable, Batch.start(gitExecutable, "--batch-check"));
+    }
+
+    /**
+     * Resolves revision to the object name.
+     *
+     * @param revision
+     *            Revision to resolve, e.g. <code>refs/heads/develop</code>.
+     * @return Object info or <code>null</code> if revision doesn't exist.
+     * @throws IOException
+     *             If communication with the process fails.
+     */
+    public synchronized ObjectInfo resolve(final String revision) throws IOException {
+        return check.query(revision);
+    }
+
+    /**
+     * Reads content of the blob.
+     *
+     * @param revision
+     *            Revision of the blob to read, e.g.
+     *            <code>develop:pom.xml</code>.
+     * @return Blob content or <code>null</code> if revision doesn't exist or
+     *         isn't a blob.
+     * @throws IOException
+     *             If communication with the process fails.
+     */
+    public synchronized String readBlob(final String revision) throws IOException {
+        // the object body is sent for any type, so check it first
+        final ObjectInfo checked = check.query(revision);
+        if (checked == null || !"blob".equals(checked.getType()) || checked.getSize() > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        if (contents == null || !contents.isAlive()) {
+            contents = Batch.start(gitExecutable, "--batch");
+        }
+        // query by object name, so the revision cannot change in between
+        final ObjectInfo info = contents.query(checked.getId());
+        if (info == null) {
+            return null;
+        }
+        final byte[] content = contents.read(info.getSize());
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether process is still running.
+     *
+     * @return <code>true</code> if process is alive.
+     */
+    public boolean isAlive() {
+        return check.isAlive();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        check.close();
+        if (contents != null) {
+            contents.close();
+        }
+    }
+
+    /**
+     * Single <code>git cat-file</code> process.
+     */
+    private static class Batch {
+        private final Process process;
+        private final OutputStream in;
+        private final InputStream out;
+
+        private Batch(final Process process) {
+            this.process = process;
+            this.in = process.getOutputStream();
+            this.out = new BufferedInputStream(process.getInputStream());
+        }
+
+        private static Batch start(final String gitExecutable, final String mode) throws IOException {
+            final ProcessBuilder builder = new ProcessBuilder(gitExecutable, "cat-file", mode);
+            builder.redirectError(new File(Os.isFamily(Os.FAMILY_WINDOWS) ? "NUL" : "/dev/null"));
+            return new Batch(builder.start());
+        }
+
+        private boolean isAlive() {
+            return process.isAlive();
+        }
+
+        private void close() {
+            try {
+                in.close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (IOException e) {
+                process.destroy();
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private ObjectInfo query(final String revision) throws IOException {
+            if (revision.indexOf('\n') >= 0 || revision.indexOf('\r') >= 0) {
+                throw new IOException("Unsupported revision '" + revision + "'.");
+            }
+            in.write((revision + "\n").getBytes(StandardCharsets.UTF_8));
+            in.flush();
+
+            final String line = readLine();
+            if (line.endsWith(" missing") || line.endsWith(" ambiguous")) {
+                return null;
+            }
+            final String[] parts = line.split(" ");
+            if (parts.length != 3) {
+                throw new IOException("Unexpected git cat-file output '" + line + "'.");
+            }
+            return new ObjectInfo(parts[0], parts[1], Long.parseLong(parts[2]));
+        }
+
+        /**
+         * Reads object content and the trailing line feed.
+         */
+        private byte[] read(final long size) throws IOException {
+            final byte[] content = new byte[(int) size];
+            int offset = 0;
+            while (offset < content.length) {
+                final int count = out.read(content, offset, content.length - offset);
+                if (count < 0) {
+                    throw new IOException("git cat-file process terminated unexpectedly.");
+                }
+                offset += count;
+            }
+            if (out.read() < 0) {
+                throw new IOException("git cat-file process terminated unexpectedly.");
+            }
+            return content;
+        }
+
+        private String readLine() throws IOException {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = out.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("git cat-file process terminated unexpectedly.");
+                }
+                line.write(b);
+            }
+            return new String(line.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Git object info.
+     */
+    public static class ObjectInfo {
+        private final String id;
+        private final String type;
+        private final long size;
+
+        private ObjectInfo(final String id, final String type, final long size) {
+            this.id = id;
+            this.type = type;
+            this.size = size;
+        }
+
+        /**
+         * @return the id
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the type
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the size
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -138,16 +140,14 @@ public class GitFlowFeatureFinishMojo extends AbstractGitFlowMojo {
 
             // fetch and check remote
             if (fetchRemote) {
-                gitFetchRemoteAndCompareCreate(featureBranchName);
-
-                gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
+                gitFetchRemoteAndCompareCreate(featureBranchName, gitFlowConfig.getDevelopmentBranch());
             }
 
             // git checkout feature/...
             gitCheckout(featureBranchName);
 
             if (!skipTestProject) {
-                mvnCleanTest();
+                mvnCleanTest(gitFlowConfig.getDevelopmentBranch());
             }
 
             // maven goals before merge
@@ -227,12 +227,12 @@ public class GitFlowFeatureFinishMojo extends AbstractGitFlowMojo {
             }
 
             if (pushRemote) {
-                gitPush(gitFlowConfig.getDevelopmentBranch(), false);
-
                 if (keepBranch) {
-                    gitPush(featureBranchName, false);
+                    gitPush(Arrays.asList(gitFlowConfig.getDevelopmentBranch(), featureBranchName), false,
+                            Collections.<String> emptyList(), Collections.<String> emptyList());
                 } else {
-                    gitPushDelete(featureBranchName);
+                    gitPush(Collections.singletonList(gitFlowConfig.getDevelopmentBranch()), false,
+                            Collections.<String> emptyList(), Collections.singletonList(featureBranchName));
                 }
             }
 
@@ -245,6 +245,8 @@ public class GitFlowFeatureFinishMojo extends AbstractGitFlowMojo {
             }
         } catch (Exception e) {
             throw new MojoFailureException("feature-finish", e);
+        } finally {
+            cleanup();
         }
     }
 
@@ -140,6 +140,8 @@ public class GitFlowFeatureStartMojo extends AbstractGitFlowMojo {
             }
         } catch (CommandLineException | VersionParseException e) {
             throw new MojoFailureException("feature-start", e);
+        } finally {
+            cleanup();
         }
     }
 
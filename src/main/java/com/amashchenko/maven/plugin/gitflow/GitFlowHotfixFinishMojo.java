@@ -15,7 +15,10 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.artifact.Artifact;
@@ -143,8 +146,15 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
         validateConfiguration(preHotfixGoals, postHotfixGoals);
 
         try {
-            // check uncommitted changes
-            checkUncommittedChanges();
+            final List<PreflightCheck> checks = new ArrayList<>();
+
+            if (concurrentPreflight && !settings.isInteractiveMode()) {
+                // there is no prompt, so it can be checked together with the remote
+                checks.add(this::checkUncommittedChanges);
+            } else {
+                // check uncommitted changes
+                checkUncommittedChanges();
+            }
 
             String hotfixBranchName = null;
             if (settings.isInteractiveMode()) {
@@ -180,17 +190,38 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
             }
 
             // fetch and check remote
+            final String[] branchNames;
+            if (supportBranchName != null) {
+                branchNames = new String[] { hotfixBranchName, supportBranchName };
+            } else if (notSameProdDevName()) {
+                branchNames = new String[] { hotfixBranchName, gitFlowConfig.getDevelopmentBranch(),
+                        gitFlowConfig.getProductionBranch() };
+            } else {
+                branchNames = new String[] { hotfixBranchName, gitFlowConfig.getProductionBranch() };
+            }
             if (fetchRemote) {
-                gitFetchRemoteAndCompareCreate(hotfixBranchName);
+                if (supportBranchName == null) {
+                    // release branches are looked up after the comparison, fetch them together
+                    addRequiredBranches(Collections.singletonList(gitFlowConfig.getReleaseBranchPrefix()));
+                }
 
-                if (supportBranchName != null) {
-                    gitFetchRemoteAndCompareCreate(supportBranchName);
+                if (concurrentPreflight) {
+                    checks.add(() -> gitFetchRemoteAndCompare(branchNames));
                 } else {
-                    if (notSameProdDevName()) {
-                        gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
+                    for (String branchName : branchNames) {
+                        gitFetchRemoteAndCompareCreate(branchName);
                     }
-                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getProductionBranch());
+                }
+            }
+
+            runPreflightChecks(checks);
+
+            if (fetchRemote) {
+                if (concurrentPreflight) {
+                    gitCreateMissingBranches(branchNames);
+                }
 
+                if (supportBranchName == null) {
                     // release branch
                     String remoteReleases = gitFetchAndFindRemoteBranches(gitFlowConfig.getReleaseBranchPrefix(), false);
                     if (StringUtils.isNotBlank(remoteReleases)) {
@@ -210,7 +241,7 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
             gitCheckout(hotfixBranchName);
 
             if (!skipTestProject) {
-                mvnCleanTest();
+                mvnCleanTest(supportBranchName != null ? supportBranchName : gitFlowConfig.getProductionBranch());
             }
 
             // maven goals before merge
@@ -233,18 +264,37 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
                 gitCommit(commitMessages.getHotfixFinishMessage(), messageProperties);
             }
 
+            // check whether release branch exists
+            final String releaseBranch = gitFindBranches(gitFlowConfig.getReleaseBranchPrefix(), true);
+
+            // production is merged without checkout only if release or develop is checked out afterwards
+            boolean prodMergedWithoutCheckout = false;
             if (supportBranchName != null) {
                 gitCheckout(supportBranchName);
                 // git merge --no-ff hotfix/...
                 gitMergeNoff(hotfixBranchName, commitMessages.getHotfixFinishSupportMergeMessage(), messageProperties);
             } else if (!skipMergeProdBranch) {
+                if (StringUtils.isNotBlank(releaseBranch) || (!skipMergeDevBranch && notSameProdDevName())) {
+                    // git merge --no-ff hotfix/...
+                    prodMergedWithoutCheckout = gitMergeInto(gitFlowConfig.getProductionBranch(), hotfixBranchName,
+                            false, true, false, commitMessages.getHotfixFinishMergeMessage(), messageProperties);
+                } else {
+                    // git checkout production
+                    gitCheckout(gitFlowConfig.getProductionBranch());
+                    // git merge --no-ff hotfix/...
+                    gitMergeNoff(hotfixBranchName, commitMessages.getHotfixFinishMergeMessage(), messageProperties);
+                }
+            }
+
+            if (prodMergedWithoutCheckout && StringUtils.isNotBlank(postHotfixGoals)) {
                 // git checkout production
                 gitCheckout(gitFlowConfig.getProductionBranch());
-                // git merge --no-ff hotfix/...
-                gitMergeNoff(hotfixBranchName, commitMessages.getHotfixFinishMergeMessage(), messageProperties);
+                prodMergedWithoutCheckout = false;
             }
 
-            final String currentVersion = getCurrentProjectVersion();
+            final String currentVersion = prodMergedWithoutCheckout
+                    ? getProjectVersion(gitFlowConfig.getProductionBranch())
+                    : getCurrentProjectVersion();
 
             final String tagVersion = (tychoBuild || useSnapshotInHotfix) && ArtifactUtils.isSnapshot(currentVersion)
                     ? currentVersion.replace("-" + Artifact.SNAPSHOT_VERSION, "")
@@ -255,7 +305,8 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
 
                 // git tag -a ...
                 gitTag(gitFlowConfig.getVersionTagPrefix() + tagVersion,
-                        commitMessages.getTagHotfixMessage(), gpgSignTag, properties);
+                        commitMessages.getTagHotfixMessage(), gpgSignTag, properties,
+                        prodMergedWithoutCheckout ? gitFlowConfig.getProductionBranch() : null);
             }
 
             if (skipMergeProdBranch && (supportBranchName == null)) {
@@ -268,9 +319,6 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
                 mvnRun(postHotfixGoals);
             }
 
-            // check whether release branch exists
-            final String releaseBranch = gitFindBranches(gitFlowConfig.getReleaseBranchPrefix(), true);
-
             if (supportBranchName == null) {
                 // if release branch exists merge hotfix changes into it
                 if (StringUtils.isNotBlank(releaseBranch)) {
@@ -350,27 +398,28 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
             }
 
             if (pushRemote) {
+                List<String> pushRefs = new ArrayList<>();
                 if (supportBranchName != null) {
-                    gitPush(supportBranchName, !skipTag);
+                    pushRefs.add(supportBranchName);
                 } else {
-                    gitPush(gitFlowConfig.getProductionBranch(), !skipTag);
+                    pushRefs.add(gitFlowConfig.getProductionBranch());
 
                     if (StringUtils.isNotBlank(releaseBranch)) {
-                        gitPush(releaseBranch, !skipTag);
+                        pushRefs.add(releaseBranch);
                     } else if (StringUtils.isBlank(releaseBranch)
                             && notSameProdDevName()) { // if no release branch
-                        gitPush(gitFlowConfig.getDevelopmentBranch(), !skipTag);
+                        pushRefs.add(gitFlowConfig.getDevelopmentBranch());
                     }
                 }
 
                 // push tag
+                List<String> pushTagNames = new ArrayList<>();
                 if (!skipTag && skipMergeDevBranch && skipMergeProdBranch && StringUtils.isBlank(releaseBranch)) {
-                    gitPush(gitFlowConfig.getVersionTagPrefix() + tagVersion, false);
+                    pushTagNames.add(gitFlowConfig.getVersionTagPrefix() + tagVersion);
                 }
 
-                if (!keepBranch) {
-                    gitPushDelete(hotfixBranchName);
-                }
+                gitPush(pushRefs, !skipTag, pushTagNames,
+                        keepBranch ? Collections.<String> emptyList() : Collections.singletonList(hotfixBranchName));
             }
 
             if (!keepBranch) {
@@ -384,6 +433,8 @@ public class GitFlowHotfixFinishMojo extends AbstractGitFlowMojo {
             }
         } catch (Exception e) {
             throw new MojoFailureException("hotfix-finish", e);
+        } finally {
+            cleanup();
         }
     }
 
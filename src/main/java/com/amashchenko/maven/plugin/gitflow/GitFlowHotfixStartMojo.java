@@ -123,16 +123,14 @@ public class GitFlowHotfixStartMojo extends AbstractGitFlowMojo {
                 }
             }
 
-            // need to be in the correct branch to get correct project version
-            gitCheckout(branchName);
-
             // fetch and check remote
             if (fetchRemote) {
                 gitFetchRemoteAndCompareCreate(branchName);
             }
 
-            // get current project version from pom
-            final String currentVersion = getCurrentProjectVersion();
+            // get current project version from pom, hotfix branch is created
+            // from the branch without checking it out
+            final String currentVersion = getProjectVersion(branchName);
 
             // get default hotfix version
             final String defaultVersion = new GitFlowVersionInfo(currentVersion, getVersionPolicy()).hotfixVersion(tychoBuild,
@@ -208,6 +206,8 @@ public class GitFlowHotfixStartMojo extends AbstractGitFlowMojo {
             }
         } catch (CommandLineException | VersionParseException e) {
             throw new MojoFailureException("hotfix-start", e);
+        } finally {
+            cleanup();
         }
     }
 
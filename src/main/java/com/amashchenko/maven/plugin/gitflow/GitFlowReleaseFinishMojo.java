@@ -15,7 +15,10 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.artifact.Artifact;
@@ -192,13 +195,26 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
         validateConfiguration(preReleaseGoals, postReleaseGoals);
 
         try {
-            // check uncommitted changes
-            checkUncommittedChanges();
+            final List<PreflightCheck> checks = new ArrayList<>();
+
+            if (!concurrentPreflight) {
+                // check uncommitted changes
+                checkUncommittedChanges();
+            }
 
             String releaseBranch = gitFindBranches(gitFlowConfig.getReleaseBranchPrefix(), false);
 
             if (StringUtils.isBlank(releaseBranch)) {
+                if (concurrentPreflight) {
+                    // check uncommitted changes before checking out remote branch
+                    checkUncommittedChanges();
+                }
+
                 if (fetchRemote) {
+                    // branches compared later are fetched together with the release branches
+                    addRequiredBranches(Collections.<String> emptyList(), gitFlowConfig.getDevelopmentBranch(),
+                            gitFlowConfig.getProductionBranch());
+
                     releaseBranch = gitFetchAndFindRemoteBranches(gitFlowConfig.getReleaseBranchPrefix(), false);
                     if (StringUtils.isBlank(releaseBranch)) {
                         throw new MojoFailureException("There is no remote or local release branch.");
@@ -215,25 +231,60 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
                 } else {
                     throw new MojoFailureException("There is no release branch.");
                 }
+            } else if (concurrentPreflight) {
+                // check uncommitted changes
+                checks.add(this::checkUncommittedChanges);
             }
             if (StringUtils.countMatches(releaseBranch, gitFlowConfig.getReleaseBranchPrefix()) > 1) {
                 throw new MojoFailureException("More than one release branch exists. Cannot finish release.");
             }
 
-            // check snapshots dependencies
-            if (!allowSnapshots) {
-                gitCheckout(releaseBranch);
+            if (concurrentPreflight) {
+                // check snapshots dependencies, project of the current branch can be checked with other checks
+                boolean checkSnapshots = !allowSnapshots;
+                if (checkSnapshots && releaseBranch.equals(gitCurrentBranch())) {
+                    checks.add(this::checkSnapshotDependencies);
+                    checkSnapshots = false;
+                }
 
-                checkSnapshotDependencies();
-            }
+                final String[] branchNames;
+                if (notSameProdDevName()) {
+                    branchNames = new String[] { releaseBranch, gitFlowConfig.getDevelopmentBranch(),
+                            gitFlowConfig.getProductionBranch() };
+                } else {
+                    branchNames = new String[] { releaseBranch, gitFlowConfig.getDevelopmentBranch() };
+                }
+                if (fetchRemote) {
+                    checks.add(() -> gitFetchRemoteAndCompare(branchNames));
+                }
 
-            if (fetchRemote) {
-                gitFetchRemoteAndCompareCreate(releaseBranch);
+                runPreflightChecks(checks);
 
-                gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
+                if (checkSnapshots) {
+                    gitCheckout(releaseBranch);
 
-                if (notSameProdDevName()) {
-                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getProductionBranch());
+                    checkSnapshotDependencies();
+                }
+
+                if (fetchRemote) {
+                    gitCreateMissingBranches(branchNames);
+                }
+            } else {
+                // check snapshots dependencies
+                if (!allowSnapshots) {
+                    gitCheckout(releaseBranch);
+
+                    checkSnapshotDependencies();
+                }
+
+                if (fetchRemote) {
+                    gitFetchRemoteAndCompareCreate(releaseBranch);
+
+                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
+
+                    if (notSameProdDevName()) {
+                        gitFetchRemoteAndCompareCreate(gitFlowConfig.getProductionBranch());
+                    }
                 }
             }
 
@@ -264,16 +315,34 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
                 gitCommit(commitMessages.getReleaseFinishMessage(), messageProperties);
             }
 
+            final boolean mergeDevBranch = notSameProdDevName() && !skipReleaseMergeDevBranch;
+
+            // production is merged without checkout only if develop is checked out afterwards
+            boolean prodMergedWithoutCheckout = false;
             if (!skipReleaseMergeProdBranch) {
+                if (mergeDevBranch) {
+                    prodMergedWithoutCheckout = gitMergeInto(gitFlowConfig.getProductionBranch(), releaseBranch,
+                            releaseRebase, releaseMergeNoFF, releaseMergeFFOnly,
+                            commitMessages.getReleaseFinishMergeMessage(), messageProperties);
+                } else {
+                    // git checkout production
+                    gitCheckout(gitFlowConfig.getProductionBranch());
+
+                    gitMerge(releaseBranch, releaseRebase, releaseMergeNoFF, releaseMergeFFOnly, commitMessages.getReleaseFinishMergeMessage(),
+                            messageProperties);
+                }
+            }
+
+            if (prodMergedWithoutCheckout && StringUtils.isNotBlank(postReleaseGoals)) {
                 // git checkout production
                 gitCheckout(gitFlowConfig.getProductionBranch());
-
-                gitMerge(releaseBranch, releaseRebase, releaseMergeNoFF, releaseMergeFFOnly, commitMessages.getReleaseFinishMergeMessage(),
-                        messageProperties);
+                prodMergedWithoutCheckout = false;
             }
 
             // get current project version from pom
-            final String currentVersion = getCurrentProjectVersion();
+            final String currentVersion = prodMergedWithoutCheckout
+                    ? getProjectVersion(gitFlowConfig.getProductionBranch())
+                    : getCurrentProjectVersion();
 
             final String tagVersion = (tychoBuild || useSnapshotInRelease) && ArtifactUtils.isSnapshot(currentVersion)
                     ? currentVersion.replace("-" + Artifact.SNAPSHOT_VERSION, "")
@@ -283,7 +352,8 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
 
                 // git tag -a ...
                 gitTag(gitFlowConfig.getVersionTagPrefix() + tagVersion,
-                        commitMessages.getTagReleaseMessage(), gpgSignTag, messageProperties);
+                        commitMessages.getTagReleaseMessage(), gpgSignTag, messageProperties,
+                        prodMergedWithoutCheckout ? gitFlowConfig.getProductionBranch() : null);
             }
 
             // maven goals after merge
@@ -291,7 +361,7 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
                 mvnRun(postReleaseGoals);
             }
 
-            if (notSameProdDevName() && !skipReleaseMergeDevBranch) {
+            if (mergeDevBranch) {
                 // git checkout develop
                 gitCheckout(gitFlowConfig.getDevelopmentBranch());
 
@@ -363,14 +433,14 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
             }
 
             if (pushRemote) {
-                gitPush(gitFlowConfig.getProductionBranch(), !skipTag);
+                List<String> pushBranches = new ArrayList<>();
+                pushBranches.add(gitFlowConfig.getProductionBranch());
                 if (notSameProdDevName()) {
-                    gitPush(gitFlowConfig.getDevelopmentBranch(), !skipTag);
+                    pushBranches.add(gitFlowConfig.getDevelopmentBranch());
                 }
 
-                if (!keepBranch) {
-                    gitPushDelete(releaseBranch);
-                }
+                gitPush(pushBranches, !skipTag, Collections.<String> emptyList(),
+                        keepBranch ? Collections.<String> emptyList() : Collections.singletonList(releaseBranch));
             }
 
             if (!keepBranch) {
@@ -378,6 +448,8 @@ public class GitFlowReleaseFinishMojo extends AbstractGitFlowMojo {
             }
         } catch (Exception e) {
             throw new MojoFailureException("release-finish", e);
+        } finally {
+            cleanup();
         }
     }
 }
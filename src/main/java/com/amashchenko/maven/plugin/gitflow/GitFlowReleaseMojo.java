@@ -15,7 +15,10 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.maven.artifact.Artifact;
@@ -184,10 +187,11 @@ public class GitFlowReleaseMojo extends AbstractGitFlowMojo {
             }
 
             if (fetchRemote) {
-                gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
-
                 if (notSameProdDevName()) {
-                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getProductionBranch());
+                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch(),
+                            gitFlowConfig.getProductionBranch());
+                } else {
+                    gitFetchRemoteAndCompareCreate(gitFlowConfig.getDevelopmentBranch());
                 }
             }
 
@@ -320,13 +324,18 @@ public class GitFlowReleaseMojo extends AbstractGitFlowMojo {
             }
 
             if (pushRemote) {
-                gitPush(gitFlowConfig.getProductionBranch(), !skipTag);
+                List<String> pushBranches = new ArrayList<>();
+                pushBranches.add(gitFlowConfig.getProductionBranch());
                 if (notSameProdDevName()) {
-                    gitPush(gitFlowConfig.getDevelopmentBranch(), !skipTag);
+                    pushBranches.add(gitFlowConfig.getDevelopmentBranch());
                 }
+
+                gitPush(pushBranches, !skipTag, Collections.<String> emptyList(), Collections.<String> emptyList());
             }
         } catch (Exception e) {
             throw new MojoFailureException("release", e);
+        } finally {
+            cleanup();
         }
     }
 }
@@ -236,6 +236,8 @@ public class GitFlowReleaseStartMojo extends AbstractGitFlowMojo {
             }
         } catch (CommandLineException | VersionParseException e) {
             throw new MojoFailureException("release-start", e);
+        } finally {
+            cleanup();
         }
     }
 
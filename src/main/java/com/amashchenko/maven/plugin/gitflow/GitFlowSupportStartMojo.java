@@ -143,6 +143,8 @@ public class GitFlowSupportStartMojo extends AbstractGitFlowMojo {
             }
         } catch (CommandLineException e) {
             throw new MojoFailureException("support-start", e);
+        } finally {
+            cleanup();
         }
     }
 }
@@ -135,15 +135,13 @@ public class GitFlowVersionUpdateMojo extends AbstractGitFlowMojo {
                 throw new MojoFailureException("Branch name is blank.");
             }
 
-            gitCheckout(branchName);
-
             // fetch and check remote
             if (fetchRemote) {
                 gitFetchRemoteAndCompareCreate(branchName);
             }
 
             // get current project version from pom
-            final String currentVersion = getCurrentProjectVersion();
+            final String currentVersion = getProjectVersion(branchName);
 
             // get default next version
             final String defaultVersion = new GitFlowVersionInfo(currentVersion, getVersionPolicy()).hotfixVersion(tychoBuild,
@@ -174,6 +172,8 @@ public class GitFlowVersionUpdateMojo extends AbstractGitFlowMojo {
 
             // execute if version changed
             if (!version.equals(currentVersion)) {
+                gitCheckout(branchName);
+
                 mvnSetVersions(version);
 
                 messageProperties.put("version", version);
@@ -185,10 +185,11 @@ public class GitFlowVersionUpdateMojo extends AbstractGitFlowMojo {
                 messageProperties.put("version", version);
 
                 gitTag(gitFlowConfig.getVersionTagPrefix() + version, commitMessages.getTagVersionUpdateMessage(), gpgSignTag,
-                        messageProperties);
+                        messageProperties, branchName);
             }
 
             if (installProject) {
+                gitCheckout(branchName);
                 mvnCleanInstall();
             }
 
@@ -197,6 +198,8 @@ public class GitFlowVersionUpdateMojo extends AbstractGitFlowMojo {
             }
         } catch (CommandLineException | VersionParseException e) {
             throw new MojoFailureException("version-update", e);
+        } finally {
+            cleanup();
         }
     }
 
@@ -0,0 +1,516 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Reads Git references directly from the files of the repository, i.e.
+ * <code>HEAD</code>, loose refs under <code>refs/</code> and
+ * <code>packed-refs</code>. Linked worktrees are supported through the
+ * <code>commondir</code> file.
+ *
+ */
+public class GitRefDatabase {
+    /** Prefix of the symbolic reference. */
+    private static final String SYMREF_PREFIX = "ref: ";
+    /** Pattern of SHA-1 or SHA-256 object name. */
+    private static final Pattern OBJECT_ID_PATTERN = Pattern.compile("[0-9a-f]{40}([0-9a-f]{24})?");
+    /** Maximum depth of symbolic references, same as in Git. */
+    private static final int MAX_SYMREF_DEPTH = 5;
+
+    /**
+     * Rules used by Git to expand short names into full reference names. The
+     * order matters.
+     */
+    private static final String[][] REF_RULES = { { "", "" }, { "refs/", "" }, { "refs/tags/", "" },
+            { "refs/heads/", "" }, { "refs/remotes/", "" }, { "refs/remotes/", "/HEAD" } };
+
+    /** Per worktree Git directory, holds HEAD. */
+    private final File gitDir;
+    /** Common Git directory, holds refs. */
+    private final File commonDir;
+
+    private GitRefDatabase(final File gitDir, final File commonDir) {
+        this.gitDir = gitDir;
+        this.commonDir = commonDir;
+    }
+
+    /**
+     * Opens reference database of the repository which contains given
+     * directory.
+     *
+     * @param dir
+     *            Directory inside of the Git working tree.
+     * @return Reference database or <code>null</code> if repository cannot be
+     *         found or its references cannot be read from files, e.g. the
+     *         reftable format is used.
+     */
+    public static GitRefDatabase open(final File dir) {
+        if (System.getenv("GIT_DIR") != null || System.getenv("GIT_COMMON_DIR") != null) {
+            return null;
+        }
+        try {
+            File gitDir = findGitDir(dir);
+            if (gitDir == null) {
+                return null;
+            }
+            File commonDir = gitDir;
+            File commonDirFile = new File(gitDir, "commondir");
+            if (commonDirFile.isFile()) {
+                String path = readFirstLine(commonDirFile);
+                commonDir = new File(path);
+                if (!commonDir.isAbsolute()) {
+                    commonDir = new File(gitDir, path);
+                }
+                commonDir = commonDir.getCanonicalFile();
+            }
+
+            if (!new File(commonDir, "refs").isDirectory() || usesReftable(commonDir)) {
+                return null;
+            }
+            return new GitRefDatabase(gitDir, commonDir);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the gitDir
+     */
+    public File getGitDir() {
+        return gitDir;
+    }
+
+    /**
+     * @return the commonDir
+     */
+    public File getCommonDir() {
+        return commonDir;
+    }
+
+    /**
+     * Reads the reference <code>HEAD</code> points to.
+     *
+     * @return Full reference name, e.g. <code>refs/heads/develop</code> or
+     *         <code>null</code> if <code>HEAD</code> is detached.
+     * @throws IOException
+     *             If <code>HEAD</code> cannot be read.
+     */
+    public String readSymbolicHead() throws IOException {
+        String head = readFirstLine(new File(gitDir, "HEAD"));
+        if (head.startsWith(SYMREF_PREFIX)) {
+            return head.substring(SYMREF_PREFIX.length()).trim();
+        }
+        if (isObjectId(head)) {
+            return null;
+        }
+        throw new IOException("Unsupported HEAD content in " + gitDir);
+    }
+
+    /**
+     * Resolves reference to the object name.
+     *
+     * @param refName
+     *            Full reference name, e.g. <code>refs/heads/develop</code>.
+     * @return Object name or <code>null</code> if reference doesn't exist.
+     * @throws IOException
+     *             If reference cannot be read.
+     */
+    public String resolve(final String refName) throws IOException {
+        if (!isSafeRefName(refName)) {
+            throw new IOException("Unsupported reference name '" + refName + "'.");
+        }
+        return resolve(refName, null, 0);
+    }
+
+    /**
+     * Reads all references which names start with one of the given prefixes.
+     * Symbolic references are resolved, dangling ones are skipped.
+     *
+     * @param prefixes
+     *            Reference name prefixes, e.g. <code>refs/heads/</code>.
+     * @return Reference names mapped to object names sorted by reference name.
+     * @throws IOException
+     *             If references cannot be read.
+     */
+    public SortedMap<String, String> readRefs(final String... prefixes) throws IOException {
+        final SortedMap<String, String> packed = readPackedRefs();
+
+        final SortedMap<String, String> raw = new TreeMap<>();
+        for (String prefix : prefixes) {
+            for (Map.Entry<String, String> entry : packed.entrySet()) {
+                if (entry.getKey().startsWith(prefix)) {
+                    raw.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            final String dirName = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+            readLooseRefs(new File(commonDir, dirName), dirName, prefix, raw);
+        }
+
+        final SortedMap<String, String> refs = new TreeMap<>();
+        for (Map.Entry<String, String> entry : raw.entrySet()) {
+            String objectId = entry.getValue();
+            if (objectId.startsWith(SYMREF_PREFIX)) {
+                objectId = resolve(objectId.substring(SYMREF_PREFIX.length()).trim(), packed, 1);
+            }
+            if (objectId != null) {
+                refs.put(entry.getKey(), objectId);
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * Checks whether reference name matches the pattern in the same way as
+     * <code>git for-each-ref</code> does. The pattern matches if it is a prefix
+     * of the reference name up to a slash or if it matches as a glob where
+     * <code>*</code> doesn't match slash and <code>/**&#47;</code> matches any
+     * number of directories.
+     *
+     * @param pattern
+     *            Pattern, e.g. <code>refs/heads/release/*</code>.
+     * @param refName
+     *            Full reference name.
+     * @return <code>true</code> if reference name matches the pattern,
+     *         <code>false</code> otherwise.
+     */
+    public static boolean matches(final String pattern, final String refName) {
+        if (refName.startsWith(pattern) && (refName.length() == pattern.length()
+                || refName.charAt(pattern.length()) == '/' || pattern.endsWith("/"))) {
+            return true;
+        }
+        return wildmatch(pattern, 0, refName, 0);
+    }
+
+    /**
+     * Shortens full reference name like
+     * {@link #shortenRefName(String, Set, boolean)} but looks up only the
+     * references which could make the short name ambiguous instead of reading
+     * all of them.
+     *
+     * @param refName
+     *            Full reference name.
+     * @param strict
+     *            Whether the short name must not match any other reference (as
+     *            in <code>git for-each-ref</code>) or only references of higher
+     *            priority (as in <code>git symbolic-ref --short</code>).
+     * @return Short reference name.
+     * @throws IOException
+     *             If references cannot be read.
+     */
+    public String shortenRefName(final String refName, final boolean strict) throws IOException {
+        final Set<String> refNames = new HashSet<>();
+        SortedMap<String, String> packed = null;
+        for (int i = REF_RULES.length - 1; i > 0; i--) {
+            final String prefix = REF_RULES[i][0];
+            final String suffix = REF_RULES[i][1];
+            if (refName.length() <= prefix.length() + suffix.length() || !refName.startsWith(prefix)
+                    || !refName.endsWith(suffix)) {
+                continue;
+            }
+            final String shortName = refName.substring(prefix.length(), refName.length() - suffix.length());
+
+            final int rulesToCheck = strict ? REF_RULES.length : i;
+            for (int j = 0; j < rulesToCheck; j++) {
+                final String name = REF_RULES[j][0] + shortName + REF_RULES[j][1];
+                if (i == j || !isSafeRefName(name)) {
+                    continue;
+                }
+                if (packed == null && !new File(commonDir, name).isFile()) {
+                    packed = readPackedRefs();
+                }
+                if (resolve(name, packed, 0) != null) {
+                    refNames.add(name);
+                }
+            }
+        }
+        return shortenRefName(refName, refNames, strict);
+    }
+
+    /**
+     * Shortens full reference name in the same way as Git does for
+     * <code>refname:short</code>, i.e. to the shortest name which is not
+     * ambiguous.
+     *
+     * @param refName
+     *            Full reference name.
+     * @param refNames
+     *            All existing reference names, used to check ambiguity.
+     * @param strict
+     *            Whether the short name must not match any other reference (as
+     *            in <code>git for-each-ref</code>) or only references of higher
+     *            priority (as in <code>git symbolic-ref --short</code>).
+     * @return Short reference name.
+     */
+    public static String shortenRefName(final String refName, final Set<String> refNames, final boolean strict) {
+        for (int i = REF_RULES.length - 1; i > 0; i--) {
+            final String prefix = REF_RULES[i][0];
+            final String suffix = REF_RULES[i][1];
+            if (refName.length() <= prefix.length() + suffix.length() || !refName.startsWith(prefix)
+                    || !refName.endsWith(suffix)) {
+                continue;
+            }
+            final String shortName = refName.substring(prefix.length(), refName.length() - suffix.length());
+
+            final int rulesToCheck = strict ? REF_RULES.length : i;
+            boolean ambiguous = false;
+            for (int j = 0; j < rulesToCheck && !ambiguous; j++) {
+                if (i != j) {
+                    ambiguous = refNames.contains(REF_RULES[j][0] + shortName + REF_RULES[j][1]);
+                }
+            }
+            if (!ambiguous) {
+                return shortName;
+            }
+        }
+        return refName;
+    }
+
+    /**
+     * Checks that reference name can be safely used as a path inside of the Git
+     * directory.
+     *
+     * @param refName
+     *            Reference name.
+     * @return <code>true</code> if name is safe to use.
+     */
+    private static boolean isSafeRefName(final String refName) {
+        if (!refName.startsWith("refs/") || refName.contains("..") || refName.contains("//")
+                || refName.endsWith("/") || refName.endsWith(".lock")) {
+            return false;
+        }
+        for (int i = 0; i < refName.length(); i++) {
+            char c = refName.charAt(i);
+            if (c < 0x20 || c == 0x7f || c == '\\' || c == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String resolve(final String refName, SortedMap<String, String> packed, final int depth) throws IOException {
+        if (depth > MAX_SYMREF_DEPTH) {
+            return null;
+        }
+
+        String value = null;
+        File file = new File(commonDir, refName);
+        if (file.isFile()) {
+            value = readFirstLine(file);
+        } else {
+            if (packed == null) {
+                packed = readPackedRefs();
+            }
+            value = packed.get(refName);
+        }
+
+        if (value == null) {
+            return null;
+        }
+        if (value.startsWith(SYMREF_PREFIX)) {
+            final String target = value.substring(SYMREF_PREFIX.length()).trim();
+            if (!isSafeRefName(target)) {
+                return null;
+            }
+            return resolve(target, packed, depth + 1);
+        }
+        if (!isObjectId(value)) {
+            throw new IOException("Unsupported content of the reference '" + refName + "'.");
+        }
+        return value;
+    }
+
+    private SortedMap<String, String> readPackedRefs() throws IOException {
+        final SortedMap<String, String> refs = new TreeMap<>();
+        final File file = new File(commonDir, "packed-refs");
+        if (!file.isFile()) {
+            return refs;
+        }
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '^') {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space < 0 || !isObjectId(line.substring(0, space))) {
+                throw new IOException("Unsupported packed-refs line '" + line + "'.");
+            }
+            refs.put(line.substring(space + 1), line.substring(0, space));
+        }
+        return refs;
+    }
+
+    private void readLooseRefs(final File dir, final String dirName, final String prefix,
+            final Map<String, String> refs) throws IOException {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String name = dirName + file.getName();
+            if (file.isDirectory()) {
+                if ((name + "/").startsWith(prefix) || prefix.startsWith(name + "/")) {
+                    readLooseRefs(file, name + "/", prefix, refs);
+                }
+            } else if (name.startsWith(prefix) && !name.endsWith(".lock")) {
+                final String value = readFirstLine(file);
+                if (value.startsWith(SYMREF_PREFIX) || isObjectId(value)) {
+                    refs.put(name, value);
+                } else if (!value.isEmpty()) {
+                    throw new IOException("Unsupported content of the reference '" + name + "'.");
+                }
+            }
+        }
+    }
+
+    private static File findGitDir(final File dir) throws IOException {
+        File current = dir.getCanonicalFile();
+        while (current != null) {
+            final File dotGit = new File(current, ".git");
+            if (dotGit.isDirectory()) {
+                return new File(dotGit, "HEAD").isFile() ? dotGit : null;
+            }
+            if (dotGit.isFile()) {
+                final String content = readFirstLine(dotGit);
+                if (!content.startsWith("gitdir:")) {
+                    return null;
+                }
+                final String path = content.substring("gitdir:".length()).trim();
+                File gitDir = new File(path);
+                if (!gitDir.isAbsolute()) {
+                    gitDir = new File(current, path);
+                }
+                return gitDir.getCanonicalFile();
+            }
+            current = current.getParentFile();
+        }
+        return null;
+    }
+
+    private static boolean usesReftable(final File commonDir) throws IOException {
+        if (new File(commonDir, "reftable").exists()) {
+            return true;
+        }
+        final File config = new File(commonDir, "config");
+        if (config.isFile()) {
+            for (String line : Files.readAllLines(config.toPath(), StandardCharsets.UTF_8)) {
+                final String l = line.replaceAll("\\s", "").toLowerCase(Locale.ENGLISH);
+                if (l.startsWith("refstorage=")) {
+                    return !"refstorage=files".equals(l);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String readFirstLine(final File file) throws IOException {
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        return lines.isEmpty() ? "" : lines.get(0).trim();
+    }
+
+    private static boolean isObjectId(final String str) {
+        return OBJECT_ID_PATTERN.matcher(str).matches();
+    }
+
+    /**
+     * Simplified port of Git wildmatch with <code>WM_PATHNAME</code> flag.
+     */
+    private static boolean wildmatch(final String p, int pi, final String t, int ti) {
+        while (pi < p.length()) {
+            char pc = p.charAt(pi);
+            if (pc == '*') {
+                final int start = pi;
+                while (pi < p.length() && p.charAt(pi) == '*') {
+                    pi++;
+                }
+                final boolean doubleStar = pi - start > 1 && (start == 0 || p.charAt(start - 1) == '/')
+                        && (pi == p.length() || p.charAt(pi) == '/');
+                if (doubleStar && pi < p.length() && wildmatch(p, pi + 1, t, ti)) {
+                    // "**/" matches zero directories
+                    return true;
+                }
+                if (pi == p.length()) {
+                    return doubleStar || t.indexOf('/', ti) < 0;
+                }
+                for (; ti <= t.length(); ti++) {
+                    if (wildmatch(p, pi, t, ti)) {
+                        return true;
+                    }
+                    if (ti < t.length() && t.charAt(ti) == '/' && !doubleStar) {
+                        return false;
+                    }
+                }
+                return false;
+            }
+
+            if (ti >= t.length()) {
+                return false;
+            }
+            final char tc = t.charAt(ti);
+            if (pc == '?') {
+                if (tc == '/') {
+                    return false;
+                }
+            } else if (pc == '[') {
+                final int end = p.indexOf(']', pi + 2);
+                if (end < 0 || tc == '/') {
+                    return false;
+                }
+                int ci = pi + 1;
+                final boolean negate = p.charAt(ci) == '!' || p.charAt(ci) == '^';
+                if (negate) {
+                    ci++;
+                }
+                boolean found = false;
+                for (; ci < end; ci++) {
+                    if (ci + 2 < end && p.charAt(ci + 1) == '-') {
+                        found |= tc >= p.charAt(ci) && tc <= p.charAt(ci + 2);
+                        ci += 2;
+                    } else {
+                        found |= tc == p.charAt(ci);
+                    }
+                }
+                if (found == negate) {
+                    return false;
+                }
+                pi = end;
+            } else {
+                if (pc == '\\' && pi + 1 < p.length()) {
+                    pc = p.charAt(++pi);
+                }
+                if (pc != tc) {
+                    return false;
+                }
+            }
+            pi++;
+            ti++;
+        }
+        return ti == t.length();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+/**
+ * Checks reference names the same way as
+ * <code>git check-ref-format --allow-onelevel</code> does. A name is invalid
+ * if:
+ * <ul>
+ * <li>it is empty, begins or ends with <code>/</code> or contains
+ * <code>//</code>;</li>
+ * <li>any slash-separated component begins with <code>.</code> or ends with
+ * <code>.lock</code>;</li>
+ * <li>it contains <code>..</code> or <code>@{</code>;</li>
+ * <li>it contains ASCII control characters, space or any of
+ * <code>~ ^ : ? * [ \</code>;</li>
+ * <li>it ends with <code>.</code> or is the single character
+ * <code>@</code>;</li>
+ * <li>it begins with <code>-</code>, which Git commands take for an
+ * option.</li>
+ * </ul>
+ *
+ */
+public final class GitRefFormat {
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private GitRefFormat() {
+    }
+
+    /**
+     * Checks whether the name is a valid one-level or multi-level reference
+     * name, e.g. a branch name.
+     *
+     * @param name
+     *            Name to check.
+     * @return <code>true</code> if name is valid.
+     */
+    public static boolean isValid(final String name) {
+        if (name == null || name.isEmpty() || "@".equals(name) || name.charAt(0) == '-'
+                || name.charAt(name.length() - 1) == '.') {
+            return false;
+        }
+
+        int componentStart = 0;
+        char last = 0;
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c < 0x20 || c == 0x7F || c == ' ' || c == '~' || c == '^' || c == ':' || c == '?' || c == '*'
+                    || c == '[' || c == '\\') {
+                return false;
+            }
+            if ((c == '.' && last == '.') || (c == '{' && last == '@')) {
+                return false;
+            }
+            if (c == '/') {
+                if (!isValidComponent(name, componentStart, i)) {
+                    return false;
+                }
+                componentStart = i + 1;
+            }
+            last = c;
+        }
+        return isValidComponent(name, componentStart, name.length());
+    }
+
+    private static boolean isValidComponent(final String name, final int start, final int end) {
+        return end > start && name.charAt(start) != '.'
+                && !name.regionMatches(end - LOCK_SUFFIX.length(), LOCK_SUFFIX, 0, LOCK_SUFFIX.length());
+    }
+}
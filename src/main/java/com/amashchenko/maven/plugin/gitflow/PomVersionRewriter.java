@@ -0,0 +1,442 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Updates values of the simple elements in pom.xml keeping the rest of the
+ * file (formatting, comments, encoding) untouched.
+ *
+ */
+public class PomVersionRewriter {
+    private static final Pattern ENCODING_PATTERN = Pattern
+            .compile("^(?:\u00EF\u00BB\u00BF)?<\\?xml[^>]*encoding=[\"']([A-Za-z0-9._-]+)[\"']");
+
+    private final String content;
+    private final Charset charset;
+    private final Element root;
+    /** Replacements keyed by start index. */
+    private final TreeMap<Integer, Edit> edits = new TreeMap<>();
+
+    /**
+     * Parses pom.xml content.
+     *
+     * @param content
+     *            Content of the pom.xml.
+     * @throws IOException
+     *             If content isn't well-formed XML.
+     */
+    public PomVersionRewriter(final String content) throws IOException {
+        this(content, StandardCharsets.UTF_8);
+    }
+
+    private PomVersionRewriter(final String content, final Charset charset) throws IOException {
+        this.content = content;
+        this.charset = charset;
+        this.root = parse(content);
+    }
+
+    /**
+     * Reads and parses pom.xml file.
+     *
+     * @param file
+     *            The pom.xml file.
+     * @return Rewriter instance.
+     * @throws IOException
+     *             If file cannot be read or isn't well-formed XML.
+     */
+    public static PomVersionRewriter read(final File file) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Charset charset = StandardCharsets.UTF_8;
+        final Matcher m = ENCODING_PATTERN.matcher(new String(bytes, StandardCharsets.ISO_8859_1));
+        if (m.find()) {
+            try {
+                charset = Charset.forName(m.group(1));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unsupported encoding '" + m.group(1) + "' in " + file + ".", e);
+            }
+        }
+        return new PomVersionRewriter(new String(bytes, charset), charset);
+    }
+
+    /**
+     * Writes updated content into a temporary file in the directory of the
+     * pom.xml file if there were any changes. The pom.xml file itself is
+     * replaced later with {@link #replace(File, File)}, so several files can be
+     * written first and replaced only if all of them were written.
+     *
+     * @param file
+     *            The pom.xml file.
+     * @return Temporary file or <code>null</code> if there were no changes.
+     * @throws IOException
+     *             If file cannot be written.
+     */
+    public File writeTemp(final File file) throws IOException {
+        if (edits.isEmpty()) {
+            return null;
+        }
+        final File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            Files.write(tmp.toPath(), getContent().getBytes(charset));
+            try {
+                // temporary files are created readable by the owner only
+                Files.setPosixFilePermissions(tmp.toPath(), Files.getPosixFilePermissions(file.toPath()));
+            } catch (UnsupportedOperationException e) {
+                // not a POSIX file system
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        return tmp;
+    }
+
+    /**
+     * Replaces the pom.xml file with the temporary file written by
+     * {@link #writeTemp(File)}, atomically where possible.
+     *
+     * @param tmp
+     *            Temporary file.
+     * @param file
+     *            The pom.xml file.
+     * @throws IOException
+     *             If file cannot be replaced.
+     */
+    public static void replace(final File tmp, final File file) throws IOException {
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Gets value of the simple element.
+     *
+     * @param path
+     *            Slash separated element path starting from the root, e.g.
+     *            <code>project/parent/version</code>.
+     * @return Trimmed element value or <code>null</code> if element doesn't
+     *         exist or isn't simple text element.
+     */
+    public String getValue(final String path) {
+        final Element element = find(path);
+        return element != null ? element.getValue() : null;
+    }
+
+    /**
+     * Checks whether the element exists.
+     *
+     * @param path
+     *            Slash separated element path starting from the root, e.g.
+     *            <code>project/profiles</code>.
+     * @return <code>true</code> if element exists.
+     */
+    public boolean hasElement(final String path) {
+        return find(path) != null;
+    }
+
+    /**
+     * Sets value of the simple element if it exists.
+     *
+     * @param path
+     *            Slash separated element path starting from the root, e.g.
+     *            <code>project/properties/revision</code>.
+     * @param value
+     *            New value.
+     * @return <code>true</code> if element exists and value was changed.
+     */
+    public boolean setValue(final String path, final String value) {
+        return setValue(find(path), value);
+    }
+
+    /**
+     * Updates versions of the dependencies and plugins anywhere in the pom.xml.
+     *
+     * @param oldVersions
+     *            Old versions keyed by <code>groupId:artifactId</code>. Only
+     *            dependencies and plugins with the same literal version are
+     *            updated.
+     * @param newVersion
+     *            New version.
+     * @return Number of updated dependencies and plugins.
+     */
+    public int setDependencyVersions(final Map<String, String> oldVersions, final String newVersion) {
+        final List<Element> elements = new ArrayList<>();
+        collect(root, elements);
+
+        int count = 0;
+        for (Element element : elements) {
+            String groupId = element.childValue("groupId");
+            if (groupId == null && "plugin".equals(element.name)) {
+                groupId = "org.apache.maven.plugins";
+            }
+            final String artifactId = element.childValue("artifactId");
+            final Element version = element.child("version");
+            if (groupId != null && artifactId != null && version != null
+                    && version.getValue() != null
+                    && version.getValue().equals(oldVersions.get(groupId + ":" + artifactId))
+                    && setValue(version, newVersion)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return <code>true</code> if any value was changed.
+     */
+    public boolean isChanged() {
+        return !edits.isEmpty();
+    }
+
+    /**
+     * @return Updated content.
+     */
+    public String getContent() {
+        final StringBuilder sb = new StringBuilder(content.length() + 64);
+        int pos = 0;
+        for (Map.Entry<Integer, Edit> edit : edits.entrySet()) {
+            sb.append(content, pos, edit.getKey());
+            sb.append(edit.getValue().text);
+            pos = edit.getValue().end;
+        }
+        sb.append(content, pos, content.length());
+        return sb.toString();
+    }
+
+    private boolean setValue(final Element element, final String value) {
+        if (element == null || element.getValue() == null || element.getValue().equals(value)) {
+            return false;
+        }
+        // keep whitespace around the value
+        int start = element.textStart;
+        while (start < element.textEnd && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        int end = element.textEnd;
+        while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+            end--;
+        }
+        edits.put(start, new Edit(end, escape(value)));
+        element.value = value;
+        return true;
+    }
+
+    private Element find(final String path) {
+        final String[] names = path.split("/");
+        if (root == null || !root.name.equals(names[0])) {
+            return null;
+        }
+        Element element = root;
+        for (int i = 1; i < names.length && element != null; i++) {
+            element = element.child(names[i]);
+        }
+        return element;
+    }
+
+    private static void collect(final Element element, final List<Element> result) {
+        for (Element child : element.children) {
+            if (("dependency".equals(child.name) && "dependencies".equals(element.name))
+                    || ("plugin".equals(child.name) && "plugins".equals(element.name))
+                    || ("extension".equals(child.name) && "extensions".equals(element.name))) {
+                result.add(child);
+            }
+            collect(child, result);
+        }
+    }
+
+    private static Element parse(final String xml) throws IOException {
+        Element root = null;
+        Element current = null;
+        int i = 0;
+        while (true) {
+            final int lt = xml.indexOf('<', i);
+            if (lt < 0) {
+                break;
+            }
+            if (current != null && lt > i && xml.substring(i, lt).indexOf('&') >= 0
+                    && !isSimpleEntities(xml.substring(i, lt))) {
+                current.simple = false;
+            }
+            if (xml.startsWith("<!--", lt)) {
+                i = indexOf(xml, "-->", lt + 4) + 3;
+                if (current != null) {
+                    current.simple = false;
+                }
+            } else if (xml.startsWith("<![CDATA[", lt)) {
+                i = indexOf(xml, "]]>", lt + 9) + 3;
+                if (current != null) {
+                    current.simple = false;
+                }
+            } else if (xml.startsWith("<?", lt)) {
+                i = indexOf(xml, "?>", lt + 2) + 2;
+            } else if (xml.startsWith("<!", lt)) {
+                // doctype, possibly with internal subset
+                int depth = 0;
+                int j = lt + 2;
+                for (; j < xml.length(); j++) {
+                    final char c = xml.charAt(j);
+                    if (c == '[') {
+                        depth++;
+                    } else if (c == ']') {
+                        depth--;
+                    } else if (c == '>' && depth == 0) {
+                        break;
+                    }
+                }
+                if (j >= xml.length()) {
+                    throw new IOException("Unterminated declaration.");
+                }
+                i = j + 1;
+            } else if (xml.startsWith("</", lt)) {
+                final int gt = indexOf(xml, ">", lt + 2);
+                final String name = xml.substring(lt + 2, gt).trim();
+                if (current == null || !current.name.equals(name)) {
+                    throw new IOException("Unexpected closing tag '" + name + "'.");
+                }
+                current.textEnd = lt;
+                if (current.simple) {
+                    current.value = unescape(xml.substring(current.textStart, lt).trim());
+                }
+                current = current.parent;
+                i = gt + 1;
+            } else {
+                final int gt = tagEnd(xml, lt + 1);
+                int nameEnd = lt + 1;
+                while (nameEnd < gt && !Character.isWhitespace(xml.charAt(nameEnd)) && xml.charAt(nameEnd) != '/') {
+                    nameEnd++;
+                }
+                final Element element = new Element(xml.substring(lt + 1, nameEnd), current);
+                if (current != null) {
+                    current.children.add(element);
+                    current.simple = false;
+                } else if (root == null) {
+                    root = element;
+                } else {
+                    throw new IOException("More than one root element.");
+                }
+                element.textStart = gt + 1;
+                if (xml.charAt(gt - 1) == '/') {
+                    element.textEnd = gt + 1;
+                    element.simple = false;
+                } else {
+                    current = element;
+                }
+                i = gt + 1;
+            }
+        }
+        if (root == null || current != null) {
+            throw new IOException("Malformed XML.");
+        }
+        return root;
+    }
+
+    private static int tagEnd(final String xml, final int from) throws IOException {
+        char quote = 0;
+        for (int j = from; j < xml.length(); j++) {
+            final char c = xml.charAt(j);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return j;
+            }
+        }
+        throw new IOException("Unterminated tag.");
+    }
+
+    private static int indexOf(final String xml, final String str, final int from) throws IOException {
+        final int index = xml.indexOf(str, from);
+        if (index < 0) {
+            throw new IOException("Missing '" + str + "'.");
+        }
+        return index;
+    }
+
+    private static boolean isSimpleEntities(final String text) {
+        return text.replaceAll("&(amp|lt|gt|quot|apos);", "").indexOf('&') < 0;
+    }
+
+    private static String escape(final String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String unescape(final String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+
+    private static class Element {
+        private final String name;
+        private final Element parent;
+        private final List<Element> children = new ArrayList<>();
+        private int textStart;
+        private int textEnd;
+        /** Contains only text, i.e. no child elements, comments or CDATA. */
+        private boolean simple = true;
+        private String value;
+
+        private Element(final String name, final Element parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        private Element child(final String childName) {
+            for (Element child : children) {
+                if (child.name.equals(childName)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private String childValue(final String childName) {
+            final Element child = child(childName);
+            return child != null ? child.getValue() : null;
+        }
+
+        private String getValue() {
+            return simple ? value : null;
+        }
+    }
+
+    private static class Edit {
+        private final int end;
+        private final String text;
+
+        private Edit(final int end, final String text) {
+            this.end = end;
+            this.text = text;
+        }
+    }
+}
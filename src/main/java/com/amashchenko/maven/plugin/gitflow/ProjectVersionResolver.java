@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Resolves project version from the pom.xml files of the project and its
+ * parents without building the Maven model, so the files can be read e.g. from
+ * the Git object database. Only the cases which give the same result as Maven
+ * are resolved, otherwise the version is <code>null</code>:
+ * <ul>
+ * <li>parents are looked up with <code>relativePath</code> and must have the
+ * declared groupId and artifactId;</li>
+ * <li>properties are resolved from the user properties and from the
+ * <code>properties</code> of the nearest pom.xml;</li>
+ * <li>properties aren't resolved if any of the pom.xml files declares
+ * profiles, which can override them.</li>
+ * </ul>
+ *
+ */
+public class ProjectVersionResolver {
+    /** Maximum number of the pom.xml files, limits the parents cycle. */
+    private static final int MAX_POMS = 10;
+
+    private final List<PomVersionRewriter> poms = new ArrayList<>();
+    private String nextPath;
+    private String version;
+    private boolean unresolvable;
+
+    /**
+     * @param path
+     *            Path of the project pom.xml relative to the top-level
+     *            directory of the repository.
+     */
+    public ProjectVersionResolver(final String path) {
+        this.nextPath = path;
+    }
+
+    /**
+     * Gets path of the next pom.xml needed to resolve the version.
+     *
+     * @return Path of the pom.xml relative to the top-level directory of the
+     *         repository or <code>null</code> if no more files are needed.
+     */
+    public String getNextPath() {
+        return nextPath;
+    }
+
+    /**
+     * Adds the pom.xml from the {@link #getNextPath()}.
+     *
+     * @param pom
+     *            Content of the pom.xml.
+     */
+    public void addPom(final PomVersionRewriter pom) {
+        if (!poms.isEmpty()) {
+            final PomVersionRewriter child = poms.get(poms.size() - 1);
+            if (!isParent(child, pom)) {
+                // Maven would resolve the parent from the repository
+                unresolvable = true;
+                nextPath = null;
+                return;
+            }
+        }
+        poms.add(pom);
+
+        if (version == null) {
+            version = pom.getValue("project/version");
+            if (version == null) {
+                version = pom.getValue("project/parent/version");
+            }
+        }
+        if (version == null || !version.contains("${") || pom.getValue("project/parent/artifactId") == null
+                || poms.size() >= MAX_POMS) {
+            nextPath = null;
+        } else {
+            nextPath = parentPomPath(nextPath, pom.getValue("project/parent/relativePath"));
+        }
+    }
+
+    /**
+     * Resolves the version from the added pom.xml files.
+     *
+     * @param userProperties
+     *            User properties which take precedence over the properties in
+     *            the pom.xml files.
+     * @return Project version or <code>null</code> if it cannot be resolved.
+     */
+    public String resolve(final Properties userProperties) {
+        if (version == null || unresolvable) {
+            return null;
+        }
+        String result = version;
+        if (result.contains("${")) {
+            for (PomVersionRewriter pom : poms) {
+                if (pom.hasElement("project/profiles")) {
+                    return null;
+                }
+            }
+        }
+        // user properties first, then the nearest pom.xml
+        for (int i = 0; i < MAX_POMS && result.contains("${"); i++) {
+            final int start = result.indexOf("${");
+            final int end = result.indexOf('}', start);
+            if (end < 0) {
+                return null;
+            }
+            final String name = result.substring(start + 2, end);
+            String value = userProperties.getProperty(name);
+            for (int j = 0; value == null && j < poms.size(); j++) {
+                value = poms.get(j).getValue("project/properties/" + name);
+            }
+            if (value == null) {
+                return null;
+            }
+            result = result.substring(0, start) + value + result.substring(end + 1);
+        }
+        return result.contains("${") ? null : result;
+    }
+
+    /**
+     * Checks whether the pom.xml is the parent declared in the child pom.xml.
+     *
+     * @param child
+     *            Child pom.xml.
+     * @param parent
+     *            Parent pom.xml found with <code>relativePath</code>.
+     * @return <code>true</code> if groupId and artifactId of the parent are
+     *         the declared ones.
+     */
+    static boolean isParent(final PomVersionRewriter child, final PomVersionRewriter parent) {
+        String groupId = parent.getValue("project/groupId");
+        if (groupId == null) {
+            groupId = parent.getValue("project/parent/groupId");
+        }
+        return groupId != null && groupId.equals(child.getValue("project/parent/groupId"))
+                && StringUtils.equals(parent.getValue("project/artifactId"),
+                        child.getValue("project/parent/artifactId"));
+    }
+
+    /**
+     * Gets path of the parent pom.xml.
+     *
+     * @param path
+     *            Path of the pom.xml relative to the top-level directory of the
+     *            repository.
+     * @param relativePath
+     *            Value of the <code>relativePath</code> of the parent.
+     * @return Path of the parent pom.xml or <code>null</code> if it is outside
+     *         of the repository or lookup is disabled.
+     */
+    static String parentPomPath(final String path, final String relativePath) {
+        String parentPath = relativePath == null ? "../pom.xml" : relativePath.replace('\\', '/');
+        if (parentPath.isEmpty()) {
+            return null;
+        }
+        if (!parentPath.endsWith(".xml")) {
+            parentPath = StringUtils.stripEnd(parentPath, "/") + "/pom.xml";
+        }
+        final List<String> segments = new ArrayList<>(Arrays.asList(path.split("/")));
+        // file name
+        segments.remove(segments.size() - 1);
+        for (String segment : parentPath.split("/")) {
+            if ("..".equals(segment)) {
+                if (segments.isEmpty()) {
+                    return null;
+                }
+                segments.remove(segments.size() - 1);
+            } else if (!segment.isEmpty() && !".".equals(segment)) {
+                segments.add(segment);
+            }
+        }
+        return StringUtils.join(segments.iterator(), "/");
+    }
+}
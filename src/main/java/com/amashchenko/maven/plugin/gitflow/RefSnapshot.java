@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory snapshot of Git reference names. Loaded once and then kept up to
+ * date by the operations which create or delete references.
+ *
+ */
+public class RefSnapshot {
+    private final SortedSet<String> refNames;
+
+    /**
+     * Creates snapshot from the full reference names.
+     *
+     * @param refNames
+     *            Full reference names, e.g. <code>refs/heads/develop</code>.
+     */
+    public RefSnapshot(final Collection<String> refNames) {
+        this.refNames = new TreeSet<>(refNames);
+    }
+
+    /**
+     * Checks whether reference exists.
+     *
+     * @param refName
+     *            Full reference name.
+     * @return <code>true</code> if reference exists, <code>false</code>
+     *         otherwise.
+     */
+    public synchronized boolean contains(final String refName) {
+        return refNames.contains(refName);
+    }
+
+    /**
+     * Finds references matching the pattern in the same way as
+     * <code>git for-each-ref --format=%(refname:short)</code> does.
+     *
+     * @param pattern
+     *            Pattern to match, e.g. <code>refs/heads/release/*</code>.
+     * @param firstMatch
+     *            Return first match only.
+     * @return Short names of the matching references sorted by full name.
+     */
+    public synchronized List<String> find(final String pattern, final boolean firstMatch) {
+        final List<String> names = new ArrayList<>();
+        for (String ref : refNames) {
+            if (GitRefDatabase.matches(pattern, ref)) {
+                names.add(GitRefDatabase.shortenRefName(ref, refNames, true));
+                if (firstMatch) {
+                    break;
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Adds reference to the snapshot.
+     *
+     * @param refName
+     *            Full reference name.
+     */
+    public synchronized void add(final String refName) {
+        refNames.add(refName);
+    }
+
+    /**
+     * Removes reference from the snapshot.
+     *
+     * @param refName
+     *            Full reference name.
+     */
+    public synchronized void remove(final String refName) {
+        refNames.remove(refName);
+    }
+}
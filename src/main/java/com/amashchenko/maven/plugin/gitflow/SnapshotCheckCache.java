@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Results of the check for SNAPSHOT dependencies per module. Modules are keyed
+ * by the path of their pom.xml relative to the top-level directory of the
+ * repository and hold the Git blob name of the pom.xml they were checked with.
+ * The pom.xml files modules inherit from (parents, aggregators) are stored
+ * separately, change of any of them invalidates the whole cache.
+ *
+ */
+public class SnapshotCheckCache {
+    /**
+     * Blob name of the pom.xml which is changed in the working tree or isn't
+     * tracked. It never matches, so such files are always checked again.
+     */
+    public static final String DIRTY_BLOB = "-";
+
+    /** Version of the file format. */
+    private static final String FORMAT = "gitflow-snapshot-check 1";
+    private static final char SEPARATOR = '\t';
+
+    private final String context;
+    /** Blob names of the inherited pom.xml files keyed by path. */
+    private final Map<String, String> inheritedFiles = new TreeMap<>();
+    /** Modules keyed by path of the pom.xml. */
+    private final Map<String, Module> modules = new TreeMap<>();
+
+    /**
+     * Creates empty cache.
+     *
+     * @param context
+     *            Hash of everything besides the pom.xml files what affects
+     *            the project model, e.g. user properties and active profiles.
+     */
+    public SnapshotCheckCache(final String context) {
+        this.context = context;
+    }
+
+    /**
+     * Reads cache from the file.
+     *
+     * @param file
+     *            Cache file.
+     * @return Cache or <code>null</code> if the file doesn't exist or has
+     *         unknown format.
+     * @throws IOException
+     *             If file cannot be read.
+     */
+    public static SnapshotCheckCache read(final File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!FORMAT.equals(reader.readLine())) {
+                return null;
+            }
+            final String[] header = split(reader.readLine(), 2);
+            if (header == null || !"context".equals(header[0])) {
+                return null;
+            }
+            final SnapshotCheckCache cache = new SnapshotCheckCache(header[1]);
+            Module module = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("file" + SEPARATOR)) {
+                    final String[] f = split(line, 3);
+                    if (f == null) {
+                        return null;
+                    }
+                    cache.inheritedFiles.put(f[1], f[2]);
+                } else if (line.startsWith("module" + SEPARATOR)) {
+                    final String[] m = split(line, 4);
+                    if (m == null) {
+                        return null;
+                    }
+                    module = new Module(m[1], m[2], m[3]);
+                    cache.modules.put(module.getPath(), module);
+                } else if (line.startsWith("snapshot" + SEPARATOR) && module != null) {
+                    final String[] s = split(line, 3);
+                    if (s == null) {
+                        return null;
+                    }
+                    module.addSnapshot(s[1], s[2]);
+                } else {
+                    return null;
+                }
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Writes cache to the file. The file is replaced atomically where
+     * possible, so concurrent readers never see partial content.
+     *
+     * @param file
+     *            Cache file.
+     * @throws IOException
+     *             If file cannot be written.
+     */
+    public void write(final File file) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir + ".");
+        }
+        final File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(FORMAT);
+                writer.newLine();
+                writer.write("context" + SEPARATOR + context);
+                writer.newLine();
+                for (Map.Entry<String, String> f : inheritedFiles.entrySet()) {
+                    writer.write("file" + SEPARATOR + f.getKey() + SEPARATOR + f.getValue());
+                    writer.newLine();
+                }
+                for (Module module : modules.values()) {
+                    writer.write("module" + SEPARATOR + module.getPath() + SEPARATOR + module.getBlob() + SEPARATOR
+                            + module.getId());
+                    writer.newLine();
+                    for (String[] s : module.getSnapshots()) {
+                        writer.write("snapshot" + SEPARATOR + s[0] + SEPARATOR + s[1]);
+                        writer.newLine();
+                    }
+                }
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private static String[] split(final String line, final int count) {
+        if (line == null) {
+            return null;
+        }
+        final String[] parts = line.split(String.valueOf(SEPARATOR), count);
+        return parts.length == count ? parts : null;
+    }
+
+    /**
+     * @return the context
+     */
+    public String getContext() {
+        return context;
+    }
+
+    /**
+     * @return Blob names of the inherited pom.xml files keyed by path.
+     */
+    public Map<String, String> getInheritedFiles() {
+        return inheritedFiles;
+    }
+
+    /**
+     * @return Modules keyed by path of the pom.xml.
+     */
+    public Map<String, Module> getModules() {
+        return modules;
+    }
+
+    /**
+     * @return Paths of all pom.xml files the cache depends on.
+     */
+    public Set<String> getPaths() {
+        final Set<String> paths = new HashSet<>(inheritedFiles.keySet());
+        paths.addAll(modules.keySet());
+        return paths;
+    }
+
+    /**
+     * Finds modules which have to be checked again.
+     *
+     * @param currentContext
+     *            Context of the current check.
+     * @param blobs
+     *            Blob names of the pom.xml files keyed by path. Files changed
+     *            in the working tree or not tracked are missing.
+     * @return Paths of the changed modules or <code>null</code> if the whole
+     *         cache is invalid, i.e. the context or any of the inherited files
+     *         is changed.
+     */
+    public List<String> findChangedModules(final String currentContext, final Map<String, String> blobs) {
+        if (!context.equals(currentContext)) {
+            return null;
+        }
+        for (Map.Entry<String, String> f : inheritedFiles.entrySet()) {
+            if (!isSameBlob(f.getValue(), blobs.get(f.getKey()))) {
+                return null;
+            }
+        }
+        final List<String> changed = new ArrayList<>();
+        for (Module module : modules.values()) {
+            if (!isSameBlob(module.getBlob(), blobs.get(module.getPath()))) {
+                changed.add(module.getPath());
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isSameBlob(final String cached, final String current) {
+        return !DIRTY_BLOB.equals(cached) && cached.equals(current);
+    }
+
+    /**
+     * Adds module replacing the one with the same path.
+     *
+     * @param module
+     *            Module.
+     */
+    public void addModule(final Module module) {
+        modules.put(module.getPath(), module);
+    }
+
+    /**
+     * Checked module.
+     */
+    public static class Module {
+        private final String path;
+        private final String blob;
+        private final String id;
+        private final List<String[]> snapshots = new ArrayList<>();
+
+        /**
+         * @param path
+         *            Path of the pom.xml relative to the top-level directory.
+         * @param blob
+         *            Git blob name of the pom.xml.
+         * @param id
+         *            Module id as <code>groupId:artifactId:version</code>.
+         */
+        public Module(final String path, final String blob, final String id) {
+            this.path = path;
+            this.blob = blob;
+            this.id = id;
+        }
+
+        /**
+         * Adds SNAPSHOT dependency or parent of the module.
+         *
+         * @param dependencyId
+         *            Dependency id as <code>groupId:artifactId:version</code>.
+         * @param description
+         *            Description to report.
+         */
+        public void addSnapshot(final String dependencyId, final String description) {
+            // keep the file line based
+            snapshots.add(new String[] { dependencyId, description.replaceAll("[\\t\\r\\n]+", " ") });
+        }
+
+        /**
+         * @return the path
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the blob
+         */
+        public String getBlob() {
+            return blob;
+        }
+
+        /**
+         * @return the id
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return SNAPSHOT dependencies as pairs of id and description.
+         */
+        public List<String[]> getSnapshots() {
+            return Collections.unmodifiableList(snapshots);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Extension;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Finds SNAPSHOT versions in the reactor modules. Modules are analyzed
+ * concurrently.
+ *
+ * By default only dependencies and parent are checked. The complete analysis
+ * also checks build plugins and their dependencies, build extensions,
+ * dependency management and imported BOMs. The project model is the effective
+ * one, so plugin management, active profiles and imported BOMs are already
+ * applied to it.
+ *
+ */
+public class SnapshotDependencyAnalyzer {
+    /** Minimum number of modules to analyze concurrently. */
+    private static final int MIN_PARALLEL_MODULES = 8;
+
+    private final boolean complete;
+
+    /**
+     * @param complete
+     *            Whether to check plugins, extensions, dependency management
+     *            and imported BOMs besides dependencies and parent.
+     */
+    public SnapshotDependencyAnalyzer(final boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Analyzes modules concurrently.
+     *
+     * @param <T>
+     *            Type of the module source.
+     * @param sources
+     *            Module sources.
+     * @param analyzer
+     *            Function analyzing one module, e.g. calling
+     *            {@link #analyze(MavenProject, String, String)}.
+     * @return Analyzed modules in the order of the sources.
+     */
+    public <T> List<SnapshotCheckCache.Module> analyzeAll(final List<T> sources,
+            final Function<T, SnapshotCheckCache.Module> analyzer) {
+        if (sources.size() < MIN_PARALLEL_MODULES) {
+            return sources.stream().map(analyzer).collect(Collectors.toList());
+        }
+        // own pool, so the analysis doesn't compete with the common pool users
+        final ForkJoinPool pool = new ForkJoinPool(Math.min(sources.size(),
+                Runtime.getRuntime().availableProcessors()));
+        try {
+            return pool.submit(() -> sources.parallelStream().map(analyzer).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Finds SNAPSHOT versions used by the project.
+     *
+     * @param project
+     *            Project.
+     * @param path
+     *            Path of the pom.xml relative to the top-level directory.
+     * @param blob
+     *            Git blob name of the pom.xml.
+     * @return Module with all SNAPSHOT versions, including the ones built in
+     *         the reactor.
+     */
+    public SnapshotCheckCache.Module analyze(final MavenProject project, final String path, final String blob) {
+        final SnapshotCheckCache.Module module = new SnapshotCheckCache.Module(path, blob,
+                id(project.getGroupId(), project.getArtifactId(), project.getVersion()));
+        final Set<String> found = new HashSet<>();
+
+        for (Dependency d : project.getDependencies()) {
+            addDependency(module, found, project + " -> " + d, d);
+        }
+        final MavenProject parent = project.getParent();
+        if (parent != null && ArtifactUtils.isSnapshot(parent.getVersion())) {
+            module.addSnapshot(id(parent.getGroupId(), parent.getArtifactId(), parent.getVersion()),
+                    project + " -> " + parent);
+        }
+
+        if (complete) {
+            for (Plugin plugin : safe(project.getBuildPlugins())) {
+                final String pluginId = id(plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion());
+                if (ArtifactUtils.isSnapshot(plugin.getVersion()) && found.add(pluginId)) {
+                    module.addSnapshot(pluginId, project + " -> plugin " + pluginId);
+                }
+                for (Dependency d : safe(plugin.getDependencies())) {
+                    addDependency(module, found, project + " -> plugin " + pluginId + " -> " + d, d);
+                }
+            }
+            for (Extension extension : safe(project.getBuildExtensions())) {
+                final String extensionId = id(extension.getGroupId(), extension.getArtifactId(),
+                        extension.getVersion());
+                if (ArtifactUtils.isSnapshot(extension.getVersion()) && found.add(extensionId)) {
+                    module.addSnapshot(extensionId, project + " -> extension " + extensionId);
+                }
+            }
+            final DependencyManagement dependencyManagement = project.getDependencyManagement();
+            if (dependencyManagement != null) {
+                for (Dependency d : safe(dependencyManagement.getDependencies())) {
+                    addDependency(module, found, project + " -> dependencyManagement " + d, d);
+                }
+            }
+            // imported BOMs are replaced with their content in the effective model
+            final DependencyManagement originalManagement = project.getOriginalModel() != null
+                    ? project.getOriginalModel().getDependencyManagement()
+                    : null;
+            if (originalManagement != null) {
+                for (Dependency d : safe(originalManagement.getDependencies())) {
+                    if ("import".equals(d.getScope())) {
+                        final String version = interpolate(project, d.getVersion());
+                        final String bomId = id(interpolate(project, d.getGroupId()),
+                                interpolate(project, d.getArtifactId()), version);
+                        if (ArtifactUtils.isSnapshot(version) && found.add(bomId)) {
+                            module.addSnapshot(bomId, project + " -> BOM " + bomId);
+                        }
+                    }
+                }
+            }
+        }
+        return module;
+    }
+
+    private static void addDependency(final SnapshotCheckCache.Module module, final Set<String> found,
+            final String description, final Dependency d) {
+        final String dependencyId = id(d.getGroupId(), d.getArtifactId(), d.getVersion());
+        if (ArtifactUtils.isSnapshot(d.getVersion()) && found.add(dependencyId)) {
+            module.addSnapshot(dependencyId, description);
+        }
+    }
+
+    /**
+     * Resolves properties of the project in the value of the original model.
+     */
+    private static String interpolate(final MavenProject project, final String value) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+        String result = value;
+        for (int i = 0; i < 10 && result.contains("${"); i++) {
+            final int start = result.indexOf("${");
+            final int end = result.indexOf('}', start);
+            if (end < 0) {
+                break;
+            }
+            final String name = result.substring(start + 2, end);
+            String property;
+            if ("project.version".equals(name) || "pom.version".equals(name)) {
+                property = project.getVersion();
+            } else if ("project.groupId".equals(name) || "pom.groupId".equals(name)) {
+                property = project.getGroupId();
+            } else {
+                property = project.getProperties().getProperty(name);
+            }
+            if (property == null) {
+                break;
+            }
+            result = result.substring(0, start) + property + result.substring(end + 1);
+        }
+        return result;
+    }
+
+    private static String id(final String groupId, final String artifactId, final String version) {
+        return groupId + ":" + artifactId + ":" + StringUtils.defaultString(version);
+    }
+
+    private static <T> List<T> safe(final List<T> list) {
+        return list != null ? list : new ArrayList<>();
+    }
+}
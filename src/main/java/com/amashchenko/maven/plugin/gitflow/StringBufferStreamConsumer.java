@@ -15,34 +15,217 @@
  */
 package com.amashchenko.maven.plugin.gitflow;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.maven.plugin.logging.Log;
 import org.codehaus.plexus.util.cli.StreamConsumer;
 
 public class StringBufferStreamConsumer implements StreamConsumer {
     private static final String LS = System.getProperty("line.separator");
 
+    /** Charset in which the process output is decoded. */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private static final int LS_BYTES = LS.getBytes(CHARSET).length;
+
+    private static final boolean UTF_8 = StandardCharsets.UTF_8.equals(CHARSET);
+
     private final StringBuffer buffer;
 
     private final boolean printOut;
 
+    /** Log receiving lines as they arrive, can be <code>null</code>. */
+    private final Log log;
+
+    /** Last lines kept if output is bounded, <code>null</code> otherwise. */
+    private final Deque<String> tail;
+    private final int maxLines;
+    private final long maxChars;
+    private long tailChars;
+    private long skippedLines;
+
+    /** Whether to count the size of the output. */
+    private boolean countOutputSize;
+    /** Size in bytes of all consumed lines. */
+    private long outputSize;
+
+    /** Writer receiving all lines, can be <code>null</code>. */
+    private final Writer spool;
+    private IOException spoolException;
+
     public StringBufferStreamConsumer() {
         this(false);
     }
 
     public StringBufferStreamConsumer(boolean printOut) {
+        this(null, printOut);
+    }
+
+    /**
+     * Creates consumer which keeps the whole output.
+     * 
+     * @param log
+     *            Log receiving lines as they arrive, on info level if
+     *            <code>printOut</code> is <code>true</code> and on debug level
+     *            otherwise. If <code>null</code> lines are printed to the
+     *            standard output if <code>printOut</code> is <code>true</code>.
+     * @param printOut
+     *            Whether to print lines as they arrive.
+     */
+    public StringBufferStreamConsumer(Log log, boolean printOut) {
         this.buffer = new StringBuffer();
         this.printOut = printOut;
+        this.log = log;
+        this.tail = null;
+        this.maxLines = 0;
+        this.maxChars = 0;
+        this.spool = null;
+    }
+
+    /**
+     * Creates consumer which keeps only the last lines of the output.
+     * 
+     * @param log
+     *            Log receiving lines as they arrive, on info level if
+     *            <code>printOut</code> is <code>true</code> and on debug level
+     *            otherwise. If <code>null</code> lines are printed to the
+     *            standard output if <code>printOut</code> is <code>true</code>.
+     * @param printOut
+     *            Whether to print lines as they arrive.
+     * @param maxLines
+     *            Maximum number of lines to keep, zero or negative for no limit.
+     * @param maxChars
+     *            Maximum number of characters to keep, zero or negative for no
+     *            limit.
+     * @param spool
+     *            Writer which receives the full output, can be
+     *            <code>null</code>. Each line is written with a single call, so
+     *            the writer can be shared by the consumers of the output and
+     *            error streams.
+     */
+    public StringBufferStreamConsumer(Log log, boolean printOut, int maxLines, long maxChars, Writer spool) {
+        this.buffer = null;
+        this.printOut = printOut;
+        this.log = log;
+        this.tail = new ArrayDeque<>();
+        this.maxLines = maxLines;
+        this.maxChars = maxChars;
+        this.spool = spool;
     }
 
     @Override
-    public void consumeLine(String line) {
-        if (printOut) {
+    public synchronized void consumeLine(String line) {
+        if (log != null) {
+            if (printOut) {
+                log.info(line);
+            } else if (log.isDebugEnabled()) {
+                log.debug(line);
+            }
+        } else if (printOut) {
             System.out.println(line);
         }
 
-        buffer.append(line).append(LS);
+        if (countOutputSize) {
+            outputSize += encodedLength(line) + LS_BYTES;
+        }
+
+        if (spool != null && spoolException == null) {
+            try {
+                spool.write(line + LS);
+            } catch (IOException e) {
+                spoolException = e;
+            }
+        }
+
+        if (tail == null) {
+            buffer.append(line).append(LS);
+            return;
+        }
+
+        tail.addLast(line);
+        tailChars += line.length() + LS.length();
+        while (tail.size() > 1 && ((maxLines > 0 && tail.size() > maxLines) || (maxChars > 0 && tailChars > maxChars))) {
+            tailChars -= tail.removeFirst().length() + LS.length();
+            skippedLines++;
+        }
+    }
+
+    public synchronized String getOutput() {
+        if (tail == null) {
+            return buffer.toString();
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        if (skippedLines > 0) {
+            sb.append("[... ").append(skippedLines).append(" line(s) skipped ...]").append(LS);
+        }
+        for (String line : tail) {
+            sb.append(line).append(LS);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param countOutputSize
+     *            Whether to count the size of the output returned by
+     *            {@link #getOutputSize()}, <code>false</code> by default.
+     */
+    public synchronized void setCountOutputSize(boolean countOutputSize) {
+        this.countOutputSize = countOutputSize;
+    }
+
+    /**
+     * @return Size in bytes of all lines consumed while counting was enabled
+     *         including line separators, encoded with the charset in which the
+     *         process output is decoded.
+     */
+    public synchronized long getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Calculates the encoded length of the line, without encoding it if the
+     * charset is UTF-8.
+     * 
+     * @param line
+     *            Line.
+     * @return Length in bytes.
+     */
+    private static long encodedLength(final String line) {
+        if (!UTF_8) {
+            return line.getBytes(CHARSET).length;
+        }
+        long length = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < line.length()
+                    && Character.isLowSurrogate(line.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate is replaced with '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
     }
 
-    public String getOutput() {
-        return buffer.toString();
+    /**
+     * @return Exception thrown while writing into the spool, <code>null</code>
+     *         if there was none.
+     */
+    public synchronized IOException getSpoolException() {
+        return spoolException;
     }
 }
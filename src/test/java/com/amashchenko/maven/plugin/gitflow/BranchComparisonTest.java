@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+public class BranchComparisonTest {
+
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+                { "", new int[] { 0, 0 } },
+                { "ahead 3", new int[] { 3, 0 } },
+                { "behind 2", new int[] { 0, 2 } },
+                { "ahead 1, behind 12", new int[] { 1, 12 } },
+                { "gone", null },
+                { "ahead x", null } });
+    }
+
+    @ParameterizedTest
+    @MethodSource("data")
+    public void testParseTrack(final String track, final int[] expected) {
+        Assertions.assertArrayEquals(expected, BranchComparison.parseTrack(track));
+    }
+
+    @Test
+    public void testParseCounts() {
+        Assertions.assertArrayEquals(new int[] { 4, 0 }, BranchComparison.parseCounts("4 0"));
+        Assertions.assertArrayEquals(new int[] { 0, 7 }, BranchComparison.parseCounts("0\t7\n"));
+        Assertions.assertNull(BranchComparison.parseCounts("7"));
+        Assertions.assertNull(BranchComparison.parseCounts(null));
+    }
+}
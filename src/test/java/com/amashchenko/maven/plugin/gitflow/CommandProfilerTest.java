@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CommandProfilerTest {
+
+    @Test
+    public void testCommandKey() {
+        Assertions.assertEquals("git rev-list",
+                CommandProfiler.commandKey("git", true, "rev-list", "--count", "a..b"));
+        Assertions.assertEquals("git commit", CommandProfiler.commandKey("git", true, "commit", "-m", "message"));
+        Assertions.assertEquals("mvn clean install",
+                CommandProfiler.commandKey("mvn", false, "clean", "install", "-DskipTests"));
+        Assertions.assertEquals("mvn versions:set", CommandProfiler.commandKey("mvn", false,
+                "org.codehaus.mojo:versions-maven-plugin:2.16.0:set", "-DnewVersion=1.0"));
+        Assertions.assertEquals("git", CommandProfiler.commandKey("git", true, null, "--version"));
+        Assertions.assertEquals("mvn clean test",
+                CommandProfiler.commandKey("mvn", false, "clean", "test", "-T", "4", "-P", "ci"));
+        Assertions.assertEquals("mvn clean test", CommandProfiler.commandKey("mvn", false, "clean", "test", "-T4"));
+        Assertions.assertEquals("mvn clean test",
+                CommandProfiler.commandKey("mvn", false, "clean", "test", "-pl", "g:a,g:b", "-amd"));
+    }
+
+    @Test
+    public void testSummary() {
+        CommandProfiler profiler = new CommandProfiler();
+        profiler.record("git status", System.nanoTime(), 1000000L, 5000000L, 0, 10, 0);
+        profiler.record("mvn clean test", System.nanoTime(), 1000000L, 50000000L, 1, 100, 5);
+        profiler.record("git status", System.nanoTime(), 1000000L, 5000000L, 0, 10, 0);
+
+        Assertions.assertEquals(3, profiler.getInvocations().size());
+        List<String> summary = profiler.summary();
+        Assertions.assertEquals(3, summary.size());
+        Assertions.assertTrue(summary.get(0).startsWith("Commands took 60 ms"));
+        Assertions.assertTrue(summary.get(1).contains("mvn clean test"));
+        Assertions.assertTrue(summary.get(1).contains("failed 1x"));
+        Assertions.assertTrue(summary.get(2).contains("2x git status"));
+    }
+
+    @Test
+    public void testWriteTrace(@TempDir Path dir) throws Exception {
+        CommandProfiler profiler = new CommandProfiler();
+        try (CommandProfiler.Span merge = profiler.span("merge", "release/1.0")) {
+            try (CommandProfiler.Span nested = profiler.span("merge", null)) {
+                Assertions.assertSame(CommandProfiler.Span.NONE, nested);
+                profiler.record("git merge", System.nanoTime(), 0, 1000000L, 0, 0, 0);
+            }
+        }
+
+        File file = dir.resolve("trace.json").toFile();
+        profiler.writeTrace(file, "gitflow:release-finish");
+        String trace = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Assertions.assertTrue(trace.contains("\"name\": \"gitflow:release-finish\""));
+        Assertions.assertTrue(trace.contains("{\"name\": \"merge\", \"cat\": \"phase\", \"ph\": \"X\""));
+        Assertions.assertTrue(trace.contains("\"args\": {\"detail\": \"release/1.0\"}"));
+        Assertions.assertTrue(trace.contains("{\"name\": \"git merge\", \"cat\": \"git\", \"ph\": \"X\""));
+        Assertions.assertEquals(1, trace.split("\"cat\": \"phase\"", -1).length - 1);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class GitCatFileProcessTest {
+
+    @Test
+    public void testResolveAndReadBlob() throws Exception {
+        final String pom = git("cat-file", "blob", "HEAD:pom.xml");
+        Assumptions.assumeTrue(pom != null, "Git repository is not available");
+
+        try (GitCatFileProcess process = GitCatFileProcess.start("git")) {
+            GitCatFileProcess.ObjectInfo head = process.resolve("HEAD^{commit}");
+            Assertions.assertNotNull(head);
+            Assertions.assertEquals("commit", head.getType());
+            Assertions.assertEquals(git("rev-parse", "HEAD").trim(), head.getId());
+
+            Assertions.assertNull(process.resolve("refs/heads/no/such/branch"));
+            Assertions.assertNull(process.readBlob("HEAD"));
+            Assertions.assertNull(process.readBlob("HEAD:no-such-file.xml"));
+
+            Assertions.assertEquals(pom, process.readBlob("HEAD:pom.xml"));
+            // queries after the blob read are still in sync
+            Assertions.assertEquals(head.getId(), process.resolve("HEAD^{commit}").getId());
+            Assertions.assertEquals(pom, process.readBlob("HEAD:pom.xml"));
+        }
+    }
+
+    private static String git(String... args) {
+        try {
+            String[] command = new String[args.length + 1];
+            command[0] = "git";
+            System.arraycopy(args, 0, command, 1, args.length);
+            Process process = new ProcessBuilder(command).start();
+            process.getErrorStream().close();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = process.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, count);
+                }
+            }
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            return process.exitValue() == 0 ? new String(out.toByteArray(), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
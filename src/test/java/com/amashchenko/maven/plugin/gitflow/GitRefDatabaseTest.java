@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GitRefDatabaseTest {
+    private static final String SHA1 = "1111111111111111111111111111111111111111";
+    private static final String SHA2 = "2222222222222222222222222222222222222222";
+    private static final String SHA3 = "3333333333333333333333333333333333333333";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testReadRefs() throws Exception {
+        File gitDir = createRepository(new File(tempDir, "repo"));
+        write(new File(gitDir, "packed-refs"), "# pack-refs with: peeled fully-peeled sorted\n"
+                + SHA1 + " refs/heads/develop\n"
+                + SHA1 + " refs/tags/1.0\n"
+                + "^" + SHA2 + "\n");
+        write(new File(gitDir, "refs/heads/develop"), SHA2 + "\n");
+        write(new File(gitDir, "refs/heads/release/1.1"), SHA3 + "\n");
+        write(new File(gitDir, "refs/heads/release/1.1.lock"), SHA1 + "\n");
+        write(new File(gitDir, "refs/remotes/origin/HEAD"), "ref: refs/remotes/origin/develop\n");
+        write(new File(gitDir, "refs/remotes/origin/develop"), SHA1 + "\n");
+
+        GitRefDatabase db = GitRefDatabase.open(new File(tempDir, "repo"));
+        Assertions.assertNotNull(db);
+
+        SortedMap<String, String> refs = db.readRefs("refs/");
+        Assertions.assertEquals(Arrays.asList("refs/heads/develop", "refs/heads/release/1.1",
+                "refs/remotes/origin/HEAD", "refs/remotes/origin/develop", "refs/tags/1.0"),
+                Arrays.asList(refs.keySet().toArray()));
+        Assertions.assertEquals(SHA2, refs.get("refs/heads/develop"));
+        Assertions.assertEquals(SHA1, refs.get("refs/remotes/origin/HEAD"));
+
+        Assertions.assertEquals(1, db.readRefs("refs/heads/release/").size());
+        Assertions.assertEquals(SHA1, db.resolve("refs/tags/1.0"));
+        Assertions.assertNull(db.resolve("refs/heads/master"));
+        Assertions.assertEquals("refs/heads/master", db.readSymbolicHead());
+
+        write(new File(gitDir, "HEAD"), SHA1 + "\n");
+        Assertions.assertNull(db.readSymbolicHead());
+    }
+
+    @Test
+    public void testWorktree() throws Exception {
+        File gitDir = createRepository(new File(tempDir, "repo"));
+        write(new File(gitDir, "refs/heads/feature/a"), SHA1 + "\n");
+
+        File worktreeGitDir = new File(gitDir, "worktrees/wt");
+        write(new File(worktreeGitDir, "HEAD"), "ref: refs/heads/feature/a\n");
+        write(new File(worktreeGitDir, "commondir"), "../..\n");
+        File worktree = new File(tempDir, "wt");
+        write(new File(worktree, ".git"), "gitdir: " + worktreeGitDir.getAbsolutePath() + "\n");
+
+        GitRefDatabase db = GitRefDatabase.open(new File(worktree, "sub"));
+        Assertions.assertNotNull(db);
+        Assertions.assertEquals(gitDir.getCanonicalFile(), db.getCommonDir());
+        Assertions.assertEquals("refs/heads/feature/a", db.readSymbolicHead());
+        Assertions.assertEquals(SHA1, db.resolve("refs/heads/feature/a"));
+    }
+
+    @Test
+    public void testReftable() throws Exception {
+        File gitDir = createRepository(new File(tempDir, "repo"));
+        write(new File(gitDir, "config"), "[core]\n\trepositoryformatversion = 1\n"
+                + "[extensions]\n\trefStorage = reftable\n");
+        Assertions.assertNull(GitRefDatabase.open(new File(tempDir, "repo")));
+    }
+
+    @Test
+    public void testMatches() {
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/release/**", "refs/heads/release/1.0"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/release/**", "refs/heads/release/a/b"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/release*", "refs/heads/release-1.0"));
+        Assertions.assertFalse(GitRefDatabase.matches("refs/heads/release*", "refs/heads/release/1.0"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/hotfix*/*", "refs/heads/hotfix-support/1.0"));
+        Assertions.assertFalse(GitRefDatabase.matches("refs/heads/hotfix*/*", "refs/heads/hotfix-1.0"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/develop", "refs/heads/develop"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads", "refs/heads/develop"));
+        Assertions.assertFalse(GitRefDatabase.matches("refs/heads/dev", "refs/heads/develop"));
+        Assertions.assertTrue(GitRefDatabase.matches("refs/heads/v[0-9]?", "refs/heads/v1a"));
+    }
+
+    @Test
+    public void testShortenRefName() {
+        Set<String> refs = new HashSet<>(Arrays.asList("refs/heads/develop", "refs/heads/1.0", "refs/tags/1.0",
+                "refs/remotes/origin/develop", "refs/remotes/origin/HEAD"));
+
+        Assertions.assertEquals("develop", GitRefDatabase.shortenRefName("refs/heads/develop", refs, true));
+        Assertions.assertEquals("heads/1.0", GitRefDatabase.shortenRefName("refs/heads/1.0", refs, true));
+        Assertions.assertEquals("heads/1.0", GitRefDatabase.shortenRefName("refs/heads/1.0", refs, false));
+        Assertions.assertEquals("tags/1.0", GitRefDatabase.shortenRefName("refs/tags/1.0", refs, true));
+        Assertions.assertEquals("1.0", GitRefDatabase.shortenRefName("refs/tags/1.0", refs, false));
+        Assertions.assertEquals("origin/develop", GitRefDatabase.shortenRefName("refs/remotes/origin/develop", refs, true));
+        Assertions.assertEquals("origin", GitRefDatabase.shortenRefName("refs/remotes/origin/HEAD", refs, true));
+    }
+
+    @Test
+    public void testShortenRefNameLookup() throws Exception {
+        File gitDir = createRepository(new File(tempDir, "repo"));
+        write(new File(gitDir, "packed-refs"), SHA1 + " refs/tags/1.0\n");
+        write(new File(gitDir, "refs/heads/develop"), SHA1 + "\n");
+        write(new File(gitDir, "refs/heads/1.0"), SHA1 + "\n");
+        write(new File(gitDir, "refs/remotes/origin/develop"), SHA1 + "\n");
+        write(new File(gitDir, "refs/remotes/origin/HEAD"), "ref: refs/remotes/origin/develop\n");
+        write(new File(gitDir, "refs/remotes/dangling/HEAD"), "ref: refs/remotes/dangling/develop\n");
+        write(new File(gitDir, "refs/heads/dangling"), SHA1 + "\n");
+
+        GitRefDatabase db = GitRefDatabase.open(new File(tempDir, "repo"));
+        Assertions.assertNotNull(db);
+
+        Assertions.assertEquals("develop", db.shortenRefName("refs/heads/develop", true));
+        Assertions.assertEquals("heads/1.0", db.shortenRefName("refs/heads/1.0", true));
+        Assertions.assertEquals("heads/1.0", db.shortenRefName("refs/heads/1.0", false));
+        Assertions.assertEquals("tags/1.0", db.shortenRefName("refs/tags/1.0", true));
+        Assertions.assertEquals("1.0", db.shortenRefName("refs/tags/1.0", false));
+        Assertions.assertEquals("origin/develop", db.shortenRefName("refs/remotes/origin/develop", true));
+        Assertions.assertEquals("origin", db.shortenRefName("refs/remotes/origin/HEAD", true));
+        Assertions.assertEquals("dangling", db.shortenRefName("refs/heads/dangling", true));
+    }
+
+    private static File createRepository(File dir) throws IOException {
+        File gitDir = new File(dir, ".git");
+        write(new File(gitDir, "HEAD"), "ref: refs/heads/master\n");
+        Files.createDirectories(new File(gitDir, "refs/heads").toPath());
+        Files.createDirectories(new File(gitDir, "refs/tags").toPath());
+        return gitDir;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
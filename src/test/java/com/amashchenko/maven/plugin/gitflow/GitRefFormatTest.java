@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+public class GitRefFormatTest {
+    private static final String[] VALID = { "develop", "feature/a", "feature/a/b", "1.0.0", "v1.0.0",
+            "release/1.0", "hotfix/support/1.x/1.0.1", "a.b", "a-", "a@b", "@a", "a@", "{a}", "a{@",
+            "a.lockb", "a.lock.b", "lock", "a/lock", "feature/été", "a#b", "a$b", "a%b", "a&b",
+            "a!b", "a]b", "a'b", "a\"b", "a,b", "a=b", "a+b", "a;b", "a<b>", "a|b", "a_b" };
+    private static final String[] INVALID = { "", "@", "/a", "a/", "a//b", ".a", "a/.b", "a.", "a/b.",
+            "a..b", "a/..", "a.lock", "a/b.lock", "a.lock/b", "a b", "a\tb", "a\u007Fb", "a\u0001b", "a~b",
+            "a^b", "a:b", "a?b", "a*b", "a[b", "a\\b", "a@{b", "@{", "-a", "--allow-onelevel", ".", "..",
+            "a/./b", "a/../b" };
+
+    @Test
+    public void testIsValid() {
+        for (String name : VALID) {
+            Assertions.assertTrue(GitRefFormat.isValid(name), name);
+        }
+        for (String name : INVALID) {
+            Assertions.assertFalse(GitRefFormat.isValid(name), name);
+        }
+        Assertions.assertFalse(GitRefFormat.isValid(null));
+    }
+
+    @Test
+    public void testSameAsGit() throws Exception {
+        Assumptions.assumeTrue(checkRefFormat("develop") == Boolean.TRUE, "Git is not available");
+
+        for (String[] names : new String[][] { VALID, INVALID }) {
+            for (String name : names) {
+                // control and non-ASCII characters cannot be reliably passed on command line
+                if (name.isEmpty() || name.chars().anyMatch(c -> c < 0x20 || c >= 0x7F)) {
+                    continue;
+                }
+                Assertions.assertEquals(checkRefFormat(name), GitRefFormat.isValid(name), name);
+            }
+        }
+    }
+
+    private static Boolean checkRefFormat(String name) {
+        try {
+            Process process = new ProcessBuilder("git", "check-ref-format", "--allow-onelevel", name)
+                    .redirectErrorStream(true).start();
+            process.getInputStream().close();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
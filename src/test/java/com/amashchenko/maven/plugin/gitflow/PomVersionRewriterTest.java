@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PomVersionRewriterTest {
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+            + "<!-- <version>0.0.1</version> -->\r\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\r\n"
+            + "  <parent>\r\n"
+            + "    <groupId>g</groupId>\r\n"
+            + "    <artifactId>parent</artifactId>\r\n"
+            + "    <version> 0.0.1-SNAPSHOT </version>\r\n"
+            + "  </parent>\r\n"
+            + "  <artifactId>a</artifactId>\r\n"
+            + "  <version>0.0.1-SNAPSHOT</version><!-- keep -->\r\n"
+            + "  <description><![CDATA[<version>]]></description>\r\n"
+            + "  <properties>\r\n"
+            + "    <my.version>0.0.1-SNAPSHOT</my.version>\r\n"
+            + "    <empty/>\r\n"
+            + "  </properties>\r\n"
+            + "  <dependencies>\r\n"
+            + "    <dependency>\r\n"
+            + "      <groupId>g</groupId>\r\n"
+            + "      <artifactId>b</artifactId>\r\n"
+            + "      <version>0.0.1-SNAPSHOT</version>\r\n"
+            + "    </dependency>\r\n"
+            + "    <dependency>\r\n"
+            + "      <groupId>g</groupId>\r\n"
+            + "      <artifactId>c</artifactId>\r\n"
+            + "      <version>0.0.1-SNAPSHOT</version>\r\n"
+            + "    </dependency>\r\n"
+            + "  </dependencies>\r\n"
+            + "</project>\r\n";
+
+    @Test
+    public void testRewrite() throws Exception {
+        PomVersionRewriter rewriter = new PomVersionRewriter(POM);
+        Assertions.assertEquals("0.0.1-SNAPSHOT", rewriter.getValue("project/version"));
+        Assertions.assertEquals("0.0.1-SNAPSHOT", rewriter.getValue("project/parent/version"));
+        Assertions.assertNull(rewriter.getValue("project/description"));
+        Assertions.assertNull(rewriter.getValue("project/properties"));
+        Assertions.assertFalse(rewriter.isChanged());
+
+        Assertions.assertTrue(rewriter.setValue("project/version", "0.0.2"));
+        Assertions.assertTrue(rewriter.setValue("project/parent/version", "0.0.2"));
+        Assertions.assertTrue(rewriter.setValue("project/properties/my.version", "0.0.2"));
+        Assertions.assertFalse(rewriter.setValue("project/properties/empty", "0.0.2"));
+        Assertions.assertFalse(rewriter.setValue("project/properties/missing", "0.0.2"));
+        Assertions.assertEquals(1,
+                rewriter.setDependencyVersions(Collections.singletonMap("g:b", "0.0.1-SNAPSHOT"), "0.0.2"));
+
+        String expected = POM.replace("<version> 0.0.1-SNAPSHOT </version>", "<version> 0.0.2 </version>")
+                .replace("<version>0.0.1-SNAPSHOT</version><!-- keep -->", "<version>0.0.2</version><!-- keep -->")
+                .replace("<my.version>0.0.1-SNAPSHOT", "<my.version>0.0.2")
+                .replace("<artifactId>b</artifactId>\r\n      <version>0.0.1-SNAPSHOT",
+                        "<artifactId>b</artifactId>\r\n      <version>0.0.2");
+        Assertions.assertEquals(expected, rewriter.getContent());
+        Assertions.assertEquals("0.0.2", rewriter.getValue("project/version"));
+    }
+
+    @Test
+    public void testWriteTempReplace(@TempDir Path dir) throws Exception {
+        File file = dir.resolve("pom.xml").toFile();
+        Files.write(file.toPath(), POM.getBytes(StandardCharsets.UTF_8));
+
+        PomVersionRewriter rewriter = PomVersionRewriter.read(file);
+        Assertions.assertNull(rewriter.writeTemp(file));
+
+        rewriter.setValue("project/version", "0.0.2");
+        File tmp = rewriter.writeTemp(file);
+        Assertions.assertNotNull(tmp);
+        Assertions.assertEquals(file.getAbsoluteFile().getParentFile(), tmp.getParentFile());
+        Assertions.assertEquals(POM, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        PomVersionRewriter.replace(tmp, file);
+        Assertions.assertFalse(tmp.exists());
+        Assertions.assertEquals(rewriter.getContent(),
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMalformed() {
+        Assertions.assertThrows(IOException.class, () -> new PomVersionRewriter("<project><version></project>"));
+        Assertions.assertThrows(IOException.class, () -> new PomVersionRewriter("<project><!-- </project>"));
+    }
+}
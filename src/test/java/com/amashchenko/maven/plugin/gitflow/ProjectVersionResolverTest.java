@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ProjectVersionResolverTest {
+    private static final String PARENT = "<project>"
+            + "<groupId>g</groupId><artifactId>parent</artifactId><version>${revision}</version>"
+            + "<properties><revision>1.0.0-SNAPSHOT</revision><other>2.0.0</other></properties>"
+            + "</project>";
+
+    @Test
+    public void testParentPomPath() {
+        Assertions.assertEquals("pom.xml", ProjectVersionResolver.parentPomPath("a/pom.xml", null));
+        Assertions.assertEquals("a/pom.xml", ProjectVersionResolver.parentPomPath("a/b/pom.xml", null));
+        Assertions.assertEquals("parent/pom.xml",
+                ProjectVersionResolver.parentPomPath("a/pom.xml", "../parent"));
+        Assertions.assertEquals("parent/pom.xml",
+                ProjectVersionResolver.parentPomPath("a/pom.xml", "..\\parent\\"));
+        Assertions.assertEquals("a/parent.xml",
+                ProjectVersionResolver.parentPomPath("a/b/pom.xml", "./../parent.xml"));
+        Assertions.assertNull(ProjectVersionResolver.parentPomPath("pom.xml", null));
+        Assertions.assertNull(ProjectVersionResolver.parentPomPath("a/pom.xml", "../../pom.xml"));
+        Assertions.assertNull(ProjectVersionResolver.parentPomPath("a/pom.xml", ""));
+    }
+
+    @Test
+    public void testResolveLiteral() throws Exception {
+        ProjectVersionResolver resolver = new ProjectVersionResolver("pom.xml");
+        resolver.addPom(pom("<project><parent><groupId>g</groupId><artifactId>parent</artifactId>"
+                + "<version>1.0</version></parent><artifactId>a</artifactId><version>1.1</version>"
+                + "<profiles><profile><id>p</id></profile></profiles></project>"));
+        Assertions.assertNull(resolver.getNextPath());
+        Assertions.assertEquals("1.1", resolver.resolve(new Properties()));
+
+        resolver = new ProjectVersionResolver("a/pom.xml");
+        resolver.addPom(pom("<project><parent><groupId>g</groupId><artifactId>parent</artifactId>"
+                + "<version>1.0</version></parent><artifactId>a</artifactId></project>"));
+        Assertions.assertNull(resolver.getNextPath());
+        Assertions.assertEquals("1.0", resolver.resolve(new Properties()));
+    }
+
+    @Test
+    public void testResolveProperties() throws Exception {
+        ProjectVersionResolver resolver = child("<version>${revision}</version>"
+                + "<properties><revision>3.0.0</revision></properties>");
+        Assertions.assertEquals("pom.xml", resolver.getNextPath());
+        resolver.addPom(pom(PARENT));
+        Assertions.assertNull(resolver.getNextPath());
+        // nearest pom.xml first
+        Assertions.assertEquals("3.0.0", resolver.resolve(new Properties()));
+
+        resolver = child("<version>${revision}-${other}</version>");
+        resolver.addPom(pom(PARENT));
+        Assertions.assertEquals("1.0.0-SNAPSHOT-2.0.0", resolver.resolve(new Properties()));
+
+        // user properties first
+        Properties userProperties = new Properties();
+        userProperties.setProperty("revision", "4.0.0");
+        Assertions.assertEquals("4.0.0-2.0.0", resolver.resolve(userProperties));
+
+        resolver = child("<version>${missing}</version>");
+        resolver.addPom(pom(PARENT));
+        Assertions.assertNull(resolver.resolve(new Properties()));
+
+        // parent isn't added, e.g. it is outside of the repository
+        resolver = child("<version>${revision}</version>");
+        Assertions.assertNull(resolver.resolve(new Properties()));
+    }
+
+    @Test
+    public void testResolveProfiles() throws Exception {
+        ProjectVersionResolver resolver = child("<version>${revision}</version>"
+                + "<properties><revision>3.0.0</revision></properties>");
+        resolver.addPom(pom(PARENT.replace("</project>", "<profiles><profile><id>p</id></profile></profiles>"
+                + "</project>")));
+        Assertions.assertNull(resolver.resolve(new Properties()));
+
+        resolver = child("<version>${revision}</version><profiles/>");
+        resolver.addPom(pom(PARENT));
+        Assertions.assertNull(resolver.resolve(new Properties()));
+    }
+
+    @Test
+    public void testResolveOtherParent() throws Exception {
+        ProjectVersionResolver resolver = child("<version>${revision}</version>");
+        resolver.addPom(pom(PARENT.replace("<artifactId>parent</artifactId>", "<artifactId>other</artifactId>")));
+        Assertions.assertNull(resolver.getNextPath());
+        Assertions.assertNull(resolver.resolve(new Properties()));
+
+        resolver = child("<version>${revision}</version>");
+        resolver.addPom(pom(PARENT.replace("<groupId>g</groupId>", "<groupId>other</groupId>")));
+        Assertions.assertNull(resolver.resolve(new Properties()));
+
+        // groupId is inherited from the grandparent
+        resolver = child("<version>${revision}</version>");
+        resolver.addPom(pom(PARENT.replace("<groupId>g</groupId>",
+                "<parent><groupId>g</groupId><artifactId>root</artifactId><version>1</version></parent>")));
+        Assertions.assertEquals("1.0.0-SNAPSHOT", resolver.resolve(new Properties()));
+    }
+
+    private static ProjectVersionResolver child(String content) throws Exception {
+        ProjectVersionResolver resolver = new ProjectVersionResolver("a/pom.xml");
+        resolver.addPom(pom("<project><parent><groupId>g</groupId><artifactId>parent</artifactId>"
+                + "<version>${revision}</version></parent><artifactId>a</artifactId>" + content + "</project>"));
+        return resolver;
+    }
+
+    private static PomVersionRewriter pom(String content) throws Exception {
+        return new PomVersionRewriter(content);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SnapshotCheckCacheTest {
+
+    @Test
+    public void testWriteRead(@TempDir Path dir) throws Exception {
+        SnapshotCheckCache cache = new SnapshotCheckCache("ctx");
+        cache.getInheritedFiles().put("pom.xml", "1111");
+        SnapshotCheckCache.Module module = new SnapshotCheckCache.Module("module a/pom.xml", "2222", "g:a:1.0");
+        module.addSnapshot("g:b:1.0-SNAPSHOT", "g:a:1.0 ->\tg:b:1.0-SNAPSHOT");
+        cache.addModule(module);
+        cache.addModule(new SnapshotCheckCache.Module("b/pom.xml", "3333", "g:b:1.0-SNAPSHOT"));
+
+        File file = dir.resolve("gitflow/snapshot-check").toFile();
+        cache.write(file);
+        SnapshotCheckCache read = SnapshotCheckCache.read(file);
+
+        Assertions.assertNotNull(read);
+        Assertions.assertEquals("ctx", read.getContext());
+        Assertions.assertEquals("1111", read.getInheritedFiles().get("pom.xml"));
+        Assertions.assertEquals(2, read.getModules().size());
+        SnapshotCheckCache.Module a = read.getModules().get("module a/pom.xml");
+        Assertions.assertEquals("2222", a.getBlob());
+        Assertions.assertEquals("g:a:1.0", a.getId());
+        Assertions.assertEquals(1, a.getSnapshots().size());
+        Assertions.assertEquals("g:b:1.0-SNAPSHOT", a.getSnapshots().get(0)[0]);
+        Assertions.assertEquals("g:a:1.0 -> g:b:1.0-SNAPSHOT", a.getSnapshots().get(0)[1]);
+        Assertions.assertTrue(read.getModules().get("b/pom.xml").getSnapshots().isEmpty());
+    }
+
+    @Test
+    public void testReadInvalid(@TempDir Path dir) throws Exception {
+        Assertions.assertNull(SnapshotCheckCache.read(dir.resolve("missing").toFile()));
+
+        File file = dir.resolve("snapshot-check").toFile();
+        Files.write(file.toPath(), "unknown format\n".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertNull(SnapshotCheckCache.read(file));
+    }
+
+    @Test
+    public void testFindChangedModules() {
+        SnapshotCheckCache cache = cache();
+        Map<String, String> blobs = blobs();
+        Assertions.assertEquals(Collections.emptyList(), cache.findChangedModules("ctx", blobs));
+
+        blobs.put("a/pom.xml", "2223");
+        // not tracked or changed in the working tree
+        blobs.remove("b/pom.xml");
+        Assertions.assertEquals(Arrays.asList("a/pom.xml", "b/pom.xml"), cache.findChangedModules("ctx", blobs));
+    }
+
+    @Test
+    public void testFindChangedModulesInvalid() {
+        SnapshotCheckCache cache = cache();
+        Assertions.assertNull(cache.findChangedModules("other", blobs()));
+
+        Map<String, String> blobs = blobs();
+        blobs.put("pom.xml", "1112");
+        Assertions.assertNull(cache.findChangedModules("ctx", blobs));
+
+        blobs = blobs();
+        blobs.remove("pom.xml");
+        Assertions.assertNull(cache.findChangedModules("ctx", blobs));
+    }
+
+    @Test
+    public void testFindChangedModulesDirty() {
+        SnapshotCheckCache cache = cache();
+        cache.addModule(new SnapshotCheckCache.Module("c/pom.xml", SnapshotCheckCache.DIRTY_BLOB, "g:c:1.0"));
+        Map<String, String> blobs = blobs();
+        blobs.put("c/pom.xml", SnapshotCheckCache.DIRTY_BLOB);
+        Assertions.assertEquals(Arrays.asList("c/pom.xml"), cache.findChangedModules("ctx", blobs));
+
+        cache.getInheritedFiles().put("parent/pom.xml", SnapshotCheckCache.DIRTY_BLOB);
+        blobs.put("parent/pom.xml", SnapshotCheckCache.DIRTY_BLOB);
+        Assertions.assertNull(cache.findChangedModules("ctx", blobs));
+    }
+
+    @Test
+    public void testPartialReload() {
+        SnapshotCheckCache cache = cache();
+        Map<String, String> blobs = blobs();
+        blobs.put("b/pom.xml", "4444");
+        List<String> changed = cache.findChangedModules("ctx", blobs);
+        Assertions.assertEquals(Arrays.asList("b/pom.xml"), changed);
+
+        SnapshotCheckCache.Module b = new SnapshotCheckCache.Module("b/pom.xml", "4444", "g:b:1.0-SNAPSHOT");
+        b.addSnapshot("g:c:1.0-SNAPSHOT", "g:b:1.0-SNAPSHOT -> g:c:1.0-SNAPSHOT");
+        cache.addModule(b);
+
+        Assertions.assertEquals(2, cache.getModules().size());
+        Assertions.assertEquals(1, cache.getModules().get("a/pom.xml").getSnapshots().size());
+        Assertions.assertEquals(1, cache.getModules().get("b/pom.xml").getSnapshots().size());
+        Assertions.assertEquals(Collections.emptyList(), cache.findChangedModules("ctx", blobs));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("pom.xml", "a/pom.xml", "b/pom.xml")),
+                cache.getPaths());
+    }
+
+    private static SnapshotCheckCache cache() {
+        SnapshotCheckCache cache = new SnapshotCheckCache("ctx");
+        cache.getInheritedFiles().put("pom.xml", "1111");
+        SnapshotCheckCache.Module a = new SnapshotCheckCache.Module("a/pom.xml", "2222", "g:a:1.0");
+        a.addSnapshot("g:b:1.0-SNAPSHOT", "g:a:1.0 -> g:b:1.0-SNAPSHOT");
+        cache.addModule(a);
+        cache.addModule(new SnapshotCheckCache.Module("b/pom.xml", "3333", "g:b:1.0-SNAPSHOT"));
+        return cache;
+    }
+
+    private static Map<String, String> blobs() {
+        Map<String, String> blobs = new HashMap<>();
+        blobs.put("pom.xml", "1111");
+        blobs.put("a/pom.xml", "2222");
+        blobs.put("b/pom.xml", "3333");
+        return blobs;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Extension;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SnapshotDependencyAnalyzerTest {
+
+    @Test
+    public void testAnalyze() {
+        MavenProject project = project("a");
+        Model model = project.getModel();
+        model.addDependency(dependency("d", "1.0-SNAPSHOT", null));
+        model.addDependency(dependency("release", "1.0", null));
+
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("g");
+        plugin.setArtifactId("plugin");
+        plugin.setVersion("2.0-SNAPSHOT");
+        plugin.addDependency(dependency("plugin-dep", "3.0-SNAPSHOT", null));
+        Extension extension = new Extension();
+        extension.setGroupId("g");
+        extension.setArtifactId("ext");
+        extension.setVersion("4.0-SNAPSHOT");
+        Build build = new Build();
+        build.addPlugin(plugin);
+        build.addExtension(extension);
+        model.setBuild(build);
+
+        DependencyManagement management = new DependencyManagement();
+        management.addDependency(dependency("d", "1.0-SNAPSHOT", null));
+        management.addDependency(dependency("managed", "5.0-SNAPSHOT", null));
+        model.setDependencyManagement(management);
+
+        Model original = model.clone();
+        DependencyManagement originalManagement = new DependencyManagement();
+        originalManagement.addDependency(dependency("bom", "${bom.version}", "import"));
+        original.setDependencyManagement(originalManagement);
+        project.setOriginalModel(original);
+        project.getProperties().setProperty("bom.version", "6.0-SNAPSHOT");
+
+        Assertions.assertEquals(ids("g:d:1.0-SNAPSHOT"),
+                ids(new SnapshotDependencyAnalyzer(false).analyze(project, null, null)));
+        Assertions.assertEquals(
+                ids("g:d:1.0-SNAPSHOT", "g:plugin:2.0-SNAPSHOT", "g:plugin-dep:3.0-SNAPSHOT", "g:ext:4.0-SNAPSHOT",
+                        "g:managed:5.0-SNAPSHOT", "g:bom:6.0-SNAPSHOT"),
+                ids(new SnapshotDependencyAnalyzer(true).analyze(project, null, null)));
+    }
+
+    @Test
+    public void testAnalyzeAll() {
+        List<MavenProject> projects = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            projects.add(project("m" + i));
+        }
+        SnapshotDependencyAnalyzer analyzer = new SnapshotDependencyAnalyzer(true);
+        List<SnapshotCheckCache.Module> modules = analyzer.analyzeAll(projects, p -> analyzer.analyze(p, null, null));
+        Assertions.assertEquals(20, modules.size());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals("g:m" + i + ":1.0", modules.get(i).getId());
+        }
+    }
+
+    private static MavenProject project(String artifactId) {
+        Model model = new Model();
+        model.setGroupId("g");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        return new MavenProject(model);
+    }
+
+    private static Dependency dependency(String artifactId, String version, String scope) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("g");
+        dependency.setArtifactId(artifactId);
+        dependency.setVersion(version);
+        dependency.setScope(scope);
+        return dependency;
+    }
+
+    private static List<String> ids(String... ids) {
+        List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<String> ids(SnapshotCheckCache.Module module) {
+        List<String> list = new ArrayList<>();
+        for (String[] snapshot : module.getSnapshots()) {
+            list.add(snapshot[0]);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2024 Aleksandr Mashchenko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amashchenko.maven.plugin.gitflow;
+
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StringBufferStreamConsumerTest {
+    private static final String LS = System.getProperty("line.separator");
+
+    @Test
+    public void testMaxLines() {
+        StringWriter spool = new StringWriter();
+        StringBufferStreamConsumer consumer = new StringBufferStreamConsumer(null, false, 2, 0, spool);
+        for (int i = 1; i <= 5; i++) {
+            consumer.consumeLine("line" + i);
+        }
+        Assertions.assertEquals("[... 3 line(s) skipped ...]" + LS + "line4" + LS + "line5" + LS, consumer.getOutput());
+        Assertions.assertEquals("line1" + LS + "line2" + LS + "line3" + LS + "line4" + LS + "line5" + LS,
+                spool.toString());
+    }
+
+    @Test
+    public void testMaxChars() {
+        StringBufferStreamConsumer consumer = new StringBufferStreamConsumer(null, false, 0, 12 + 2 * LS.length(), null);
+        consumer.consumeLine("123456");
+        consumer.consumeLine("123456");
+        Assertions.assertEquals("123456" + LS + "123456" + LS, consumer.getOutput());
+        consumer.consumeLine("12345");
+        Assertions.assertEquals("[... 1 line(s) skipped ...]" + LS + "123456" + LS + "12345" + LS,
+                consumer.getOutput());
+        consumer.consumeLine("1234567890123456");
+        Assertions.assertEquals("[... 3 line(s) skipped ...]" + LS + "1234567890123456" + LS, consumer.getOutput());
+    }
+
+    @Test
+    public void testUnbounded() {
+        StringBufferStreamConsumer consumer = new StringBufferStreamConsumer();
+        consumer.consumeLine("a");
+        consumer.consumeLine("b");
+        Assertions.assertEquals("a" + LS + "b" + LS, consumer.getOutput());
+    }
+
+    @Test
+    public void testOutputSize() {
+        StringBufferStreamConsumer consumer = new StringBufferStreamConsumer(null, false, 1, 0, null);
+        consumer.consumeLine("a");
+        Assertions.assertEquals(0, consumer.getOutputSize());
+
+        consumer.setCountOutputSize(true);
+        final String line = "\u00e4\u20ac\ud83d\ude00\ud83d";
+        consumer.consumeLine(line);
+        Assertions.assertEquals((line + LS).getBytes(Charset.defaultCharset()).length, consumer.getOutputSize());
+    }
+
+    @Test
+    public void testLog() {
+        final List<String> lines = new ArrayList<>();
+        SystemStreamLog log = new SystemStreamLog() {
+            @Override
+            public boolean isDebugEnabled() {
+                return true;
+            }
+
+            @Override
+            public void debug(CharSequence content) {
+                lines.add("debug " + content);
+            }
+
+            @Override
+            public void info(CharSequence content) {
+                lines.add("info " + content);
+            }
+        };
+
+        new StringBufferStreamConsumer(log, false, 1, 0, null).consumeLine("a");
+        new StringBufferStreamConsumer(log, true).consumeLine("b");
+        Assertions.assertEquals("[debug a, info b]", lines.toString());
+    }
+}